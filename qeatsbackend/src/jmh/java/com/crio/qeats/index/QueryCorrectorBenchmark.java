@@ -0,0 +1,79 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of correcting a misspelled query against vocabularies of growing size, to check the
+ * trie walk keeps corrections far below a linear scan of the vocabulary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryCorrectorBenchmark {
+
+  private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+  @Param({"1000", "10000", "100000"})
+  private int vocabularySize;
+
+  private QueryCorrector queryCorrector;
+
+  private String[] misspelledQueries;
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    Map<String, Long> frequencies = new HashMap<>();
+    while (frequencies.size() < vocabularySize) {
+      frequencies.put(randomWord(random), (long) random.nextInt(1000));
+    }
+    queryCorrector = new QueryCorrector(frequencies);
+
+    String[] words = frequencies.keySet().toArray(new String[0]);
+    misspelledQueries = new String[256];
+    for (int i = 0; i < misspelledQueries.length; i++) {
+      char[] word = words[random.nextInt(words.length)].toCharArray();
+      word[random.nextInt(word.length)] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+      misspelledQueries[i] = new String(word);
+    }
+  }
+
+  @Benchmark
+  public String correct() {
+    next = (next + 1) & (misspelledQueries.length - 1);
+    return queryCorrector.correct(misspelledQueries[next], 2);
+  }
+
+  private static String randomWord(Random random) {
+    char[] word = new char[5 + random.nextInt(6)];
+    for (int i = 0; i < word.length; i++) {
+      word[i] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+    }
+    return new String(word);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of mapping a search result of restaurant entities to DTOs: with a new ModelMapper per
+ * call, as repository methods used to, with one shared ModelMapper, and with
+ * {@link EntityMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityMapperBenchmark {
+
+  @Param({"1", "20", "200"})
+  private int restaurantCount;
+
+  private List<RestaurantEntity> restaurantEntities;
+
+  private ModelMapper sharedModelMapper;
+
+  @Setup
+  public void setup() {
+    restaurantEntities = new ArrayList<>();
+    for (int i = 0; i < restaurantCount; i++) {
+      restaurantEntities.add(new RestaurantEntity(String.valueOf(i), String.valueOf(i),
+          "Restaurant " + i, "Hsr Layout", "www.google.com", 12.9 + i * 1e-4, 77.6, "08:00",
+          "23:00", Arrays.asList("South Indian", "Udupi"), null));
+    }
+    sharedModelMapper = new ModelMapper();
+  }
+
+  @Benchmark
+  public List<Restaurant> modelMapperPerCall() {
+    ModelMapper modelMapper = new ModelMapper();
+    List<Restaurant> restaurants = new ArrayList<>(restaurantEntities.size());
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      restaurants.add(modelMapper.map(restaurantEntity, Restaurant.class));
+    }
+    return restaurants;
+  }
+
+  @Benchmark
+  public List<Restaurant> sharedModelMapper() {
+    List<Restaurant> restaurants = new ArrayList<>(restaurantEntities.size());
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      restaurants.add(sharedModelMapper.map(restaurantEntity, Restaurant.class));
+    }
+    return restaurants;
+  }
+
+  @Benchmark
+  public List<Restaurant> entityMapper() {
+    return EntityMapper.toRestaurants(restaurantEntities);
+  }
+}
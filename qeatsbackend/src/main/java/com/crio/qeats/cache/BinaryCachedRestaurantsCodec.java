@@ -0,0 +1,306 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact binary format for cached restaurants.
+ * Every distinct string (cities, attributes, opening hours...) is written once in a dictionary
+ * and referenced by index. Coordinates are stored as zigzag varints in units of 1e-7 degree when
+ * that is exact, and as raw doubles otherwise, so decoding always returns the encoded values.
+ * <pre>
+ * payload     := softExpiry:varlong dictionary count:varint restaurant*
+ * dictionary  := size:varint (length:varint utf8:byte*)*
+ * restaurant  := id restaurantId name city imageUrl opensAt closesAt:ref
+ *                latitude longitude:coordinate attributes
+ * ref         := varint, 0 for null, dictionary index + 1 otherwise
+ * coordinate  := varlong, zigzag(scaled) &lt;&lt; 1, RAW_COORDINATE followed by 8 bytes,
+ *                or NULL_COORDINATE
+ * attributes  := count:varint (0 for null, size + 1 otherwise) ref*
+ * </pre>
+ * A count of 0 stands for a null restaurant list, otherwise it is the size + 1.
+ */
+@Component
+public class BinaryCachedRestaurantsCodec implements CachedRestaurantsCodec {
+
+  public static final String NAME = "binary";
+
+  public static final byte VERSION = 2;
+
+  private static final double COORDINATE_SCALE = 1e7;
+  private static final long RAW_COORDINATE = 1;
+  private static final long NULL_COORDINATE = 3;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public byte getVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public byte[] encode(CachedRestaurants cachedRestaurants) {
+    List<Restaurant> restaurants = cachedRestaurants.getRestaurants();
+    Map<String, Integer> dictionary = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    if (restaurants != null) {
+      for (Restaurant restaurant : restaurants) {
+        for (String string : stringsOf(restaurant)) {
+          addToDictionary(string, dictionary, strings);
+        }
+        if (restaurant.getAttributes() != null) {
+          for (String attribute : restaurant.getAttributes()) {
+            addToDictionary(attribute, dictionary, strings);
+          }
+        }
+      }
+    }
+
+    Writer writer = new Writer(64 + 64 * strings.size()
+        + 32 * (restaurants == null ? 0 : restaurants.size()));
+    writer.writeVarLong(zigzag(cachedRestaurants.getSoftExpiryEpochMillis()));
+    writer.writeVarLong(strings.size());
+    for (String string : strings) {
+      byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+      writer.writeVarLong(utf8.length);
+      writer.write(utf8);
+    }
+
+    writer.writeVarLong(restaurants == null ? 0 : restaurants.size() + 1L);
+    if (restaurants != null) {
+      for (Restaurant restaurant : restaurants) {
+        for (String string : stringsOf(restaurant)) {
+          writer.writeVarLong(string == null ? 0 : dictionary.get(string) + 1L);
+        }
+        writeCoordinate(writer, restaurant.getLatitude());
+        writeCoordinate(writer, restaurant.getLongitude());
+        List<String> attributes = restaurant.getAttributes();
+        writer.writeVarLong(attributes == null ? 0 : attributes.size() + 1L);
+        if (attributes != null) {
+          for (String attribute : attributes) {
+            writer.writeVarLong(attribute == null ? 0 : dictionary.get(attribute) + 1L);
+          }
+        }
+      }
+    }
+
+    return writer.toByteArray();
+  }
+
+  @Override
+  public CachedRestaurants decode(byte[] bytes, int offset) throws IOException {
+    Reader reader = new Reader(bytes, offset);
+    long softExpiryEpochMillis = unzigzag(reader.readVarLong());
+    String[] strings = new String[reader.readCount()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = reader.readString();
+    }
+
+    int restaurantCount = reader.readCount();
+    List<Restaurant> restaurants = null;
+    if (restaurantCount > 0) {
+      restaurants = new ArrayList<>(restaurantCount - 1);
+      for (int i = 1; i < restaurantCount; i++) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(readRef(reader, strings));
+        restaurant.setRestaurantId(readRef(reader, strings));
+        restaurant.setName(readRef(reader, strings));
+        restaurant.setCity(readRef(reader, strings));
+        restaurant.setImageUrl(readRef(reader, strings));
+        restaurant.setOpensAt(readRef(reader, strings));
+        restaurant.setClosesAt(readRef(reader, strings));
+        restaurant.setLatitude(readCoordinate(reader));
+        restaurant.setLongitude(readCoordinate(reader));
+        int attributeCount = reader.readCount();
+        if (attributeCount > 0) {
+          ArrayList<String> attributes = new ArrayList<>(attributeCount - 1);
+          for (int j = 1; j < attributeCount; j++) {
+            attributes.add(readRef(reader, strings));
+          }
+          restaurant.setAttributes(attributes);
+        }
+        restaurants.add(restaurant);
+      }
+    }
+
+    return new CachedRestaurants(softExpiryEpochMillis, restaurants);
+  }
+
+  // Keep in sync with the ref order of the decoder.
+  private static String[] stringsOf(Restaurant restaurant) {
+    return new String[] {restaurant.getId(), restaurant.getRestaurantId(), restaurant.getName(),
+        restaurant.getCity(), restaurant.getImageUrl(), restaurant.getOpensAt(),
+        restaurant.getClosesAt()};
+  }
+
+  private static void addToDictionary(String string, Map<String, Integer> dictionary,
+      List<String> strings) {
+    if (string != null && !dictionary.containsKey(string)) {
+      dictionary.put(string, strings.size());
+      strings.add(string);
+    }
+  }
+
+  private static void writeCoordinate(Writer writer, Double coordinate) {
+    if (coordinate == null) {
+      writer.writeVarLong(NULL_COORDINATE);
+      return;
+    }
+    long scaled = Math.round(coordinate * COORDINATE_SCALE);
+    if (scaled / COORDINATE_SCALE == coordinate && Math.abs(scaled) < (1L << 40)) {
+      writer.writeVarLong(zigzag(scaled) << 1);
+    } else {
+      writer.writeVarLong(RAW_COORDINATE);
+      writer.writeLong(Double.doubleToRawLongBits(coordinate));
+    }
+  }
+
+  private static Double readCoordinate(Reader reader) throws IOException {
+    long header = reader.readVarLong();
+    if (header == NULL_COORDINATE) {
+      return null;
+    }
+    if (header == RAW_COORDINATE) {
+      return Double.longBitsToDouble(reader.readLong());
+    }
+    if ((header & 1) != 0) {
+      throw new IOException("Invalid coordinate header " + header);
+    }
+    return unzigzag(header >>> 1) / COORDINATE_SCALE;
+  }
+
+  private static String readRef(Reader reader, String[] strings) throws IOException {
+    long ref = reader.readVarLong();
+    if (ref < 0 || ref > strings.length) {
+      throw new IOException("Invalid string reference " + ref);
+    }
+    return ref == 0 ? null : strings[(int) ref - 1];
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static final class Writer {
+
+    private byte[] buffer;
+    private int size;
+
+    Writer(int initialCapacity) {
+      buffer = new byte[initialCapacity];
+    }
+
+    void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[size++] = (byte) value;
+    }
+
+    void writeLong(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    void write(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, size, bytes.length);
+      size += bytes.length;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int extra) {
+      if (size + extra > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+      }
+    }
+  }
+
+  private static final class Reader {
+
+    private final byte[] bytes;
+    private int position;
+
+    Reader(byte[] bytes, int offset) {
+      this.bytes = bytes;
+      this.position = offset;
+    }
+
+    long readVarLong() throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte current = readByte();
+        value |= (long) (current & 0x7F) << shift;
+        if (current >= 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads a count of the elements that follow. Each element takes at least one byte, so larger
+     * counts than the remaining bytes are rejected before anything is allocated for them.
+     */
+    int readCount() throws IOException {
+      long count = readVarLong();
+      if (count < 0 || count > bytes.length - position + 1L) {
+        throw new IOException("Invalid count " + count);
+      }
+      return (int) count;
+    }
+
+    long readLong() throws IOException {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (readByte() & 0xFF);
+      }
+      return value;
+    }
+
+    String readString() throws IOException {
+      int length = readCount();
+      if (length > bytes.length - position) {
+        throw new EOFException();
+      }
+      String string = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return string;
+    }
+
+    private byte readByte() throws IOException {
+      if (position >= bytes.length) {
+        throw new EOFException();
+      }
+      return bytes[position++];
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+
+/**
+ * Tracks whether Redis is usable, so requests can pick between the cache and Mongo without
+ * talking to Redis first.
+ * Works as a circuit breaker: callers report the outcome of their Redis commands, and after
+ * enough consecutive failures or slow calls Redis is considered unavailable. While it is, only
+ * the background probe talks to Redis, and its first fast successful PING makes it available
+ * again. The probe has a thread of its own, so that it is never delayed by the scheduled
+ * rebuilds sharing Spring's scheduler thread.
+ */
+@Component
+@Log4j2
+public class CacheHealthTracker {
+
+  @Value("${qeats.cache.health.failure-threshold:3}")
+  private int failureThreshold;
+
+  @Value("${qeats.cache.health.slow-call-threshold-ms:250}")
+  private long slowCallThresholdInMillis;
+
+  @Value("${qeats.cache.health.probe-interval-ms:1000}")
+  private long probeIntervalInMillis;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private volatile boolean available = true;
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+  private final ScheduledExecutorService probeExecutor = Executors
+      .newSingleThreadScheduledExecutor(new CustomizableThreadFactory("cache-health-probe-"));
+
+  @PostConstruct
+  public void registerMetrics() {
+    Gauge.builder("qeats.cache.redis.available", this, tracker -> tracker.available ? 1 : 0)
+        .description("1 if nearby lookups use Redis, 0 if they go to Mongo")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void startProbe() {
+    probeExecutor.scheduleWithFixedDelay(this::probe, probeIntervalInMillis,
+        probeIntervalInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    probeExecutor.shutdownNow();
+  }
+
+  /**
+   * Returns whether Redis should be used. Never blocks nor talks to Redis.
+   */
+  public boolean isAvailable() {
+    return available;
+  }
+
+  /**
+   * Reports a Redis command which completed, in the given time.
+   */
+  public void recordSuccess(long elapsedNanos) {
+    if (elapsedNanos > TimeUnit.MILLISECONDS.toNanos(slowCallThresholdInMillis)) {
+      recordFailure("slow call of " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms");
+    } else if (consecutiveFailures.get() != 0) {
+      consecutiveFailures.set(0);
+    }
+  }
+
+  /**
+   * Reports a Redis command which failed.
+   */
+  public void recordFailure(Exception e) {
+    recordFailure(e.toString());
+  }
+
+  public void probe() {
+    long start = System.nanoTime();
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.ping();
+      long elapsedNanos = System.nanoTime() - start;
+      if (available) {
+        recordSuccess(elapsedNanos);
+      } else if (elapsedNanos <= TimeUnit.MILLISECONDS.toNanos(slowCallThresholdInMillis)) {
+        consecutiveFailures.set(0);
+        available = true;
+        log.info("Redis is available again");
+      }
+    } catch (RuntimeException e) {
+      recordFailure(e);
+    }
+  }
+
+  private void recordFailure(String reason) {
+    if (consecutiveFailures.incrementAndGet() >= failureThreshold && available) {
+      available = false;
+      log.warn("Redis is unavailable after {} consecutive failures, last one: {}",
+          failureThreshold, reason);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Restaurants of a cache entry, along with the time after which they should be refreshed.
+ * Entries past that soft expiry are still served while a refresh runs in the background; Redis
+ * drops them only at the hard expiry set on the key.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CachedRestaurants {
+
+  private long softExpiryEpochMillis;
+  private List<Restaurant> restaurants;
+
+  @JsonIgnore
+  public boolean isStale(long nowEpochMillis) {
+    return nowEpochMillis >= softExpiryEpochMillis;
+  }
+}
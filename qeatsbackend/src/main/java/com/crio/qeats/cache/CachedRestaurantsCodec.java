@@ -0,0 +1,35 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.io.IOException;
+
+/**
+ * Serialization format of {@link CachedRestaurants} stored in Redis.
+ * Each stored value starts with the version byte of the codec which wrote it, followed by the
+ * payload, so values written with different codecs can be read side by side.
+ */
+public interface CachedRestaurantsCodec {
+
+  /**
+   * Name used to select the codec writing new values, see qeats.cache.codec.
+   */
+  String getName();
+
+  /**
+   * Identifies the payload format; must never be reused for a different format.
+   */
+  byte getVersion();
+
+  byte[] encode(CachedRestaurants cachedRestaurants) throws IOException;
+
+  /**
+   * Decodes the payload found in bytes, from offset to the end of the array.
+   * @throws IOException if the payload is malformed
+   */
+  CachedRestaurants decode(byte[] bytes, int offset) throws IOException;
+}
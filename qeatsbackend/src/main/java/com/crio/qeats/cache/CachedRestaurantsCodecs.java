@@ -0,0 +1,89 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.io.IOException;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encodes cached restaurants with the configured codec and decodes them with whichever codec
+ * wrote them, based on their leading version byte. Switching qeats.cache.codec therefore needs
+ * no flush: old values stay readable until they are rewritten.
+ */
+@Component
+@Log4j2
+public class CachedRestaurantsCodecs {
+
+  // Values written before codecs were versioned are bare JSON objects.
+  private static final byte LEGACY_JSON_START = '{';
+
+  @Value("${qeats.cache.codec:binary}")
+  private String codecName;
+
+  @Autowired
+  private List<CachedRestaurantsCodec> codecs;
+
+  @Autowired
+  private JsonCachedRestaurantsCodec jsonCodec;
+
+  private CachedRestaurantsCodec writeCodec;
+
+  private final CachedRestaurantsCodec[] codecsByVersion = new CachedRestaurantsCodec[256];
+
+  @PostConstruct
+  public void initCodecs() {
+    for (CachedRestaurantsCodec codec : codecs) {
+      int version = codec.getVersion() & 0xFF;
+      if (version == LEGACY_JSON_START || codecsByVersion[version] != null) {
+        throw new IllegalStateException("Codec version " + version + " of " + codec.getName()
+            + " is already taken");
+      }
+      codecsByVersion[version] = codec;
+      if (codec.getName().equals(codecName)) {
+        writeCodec = codec;
+      }
+    }
+    if (writeCodec == null) {
+      throw new IllegalArgumentException("Unknown cache codec " + codecName);
+    }
+    log.info("Cached restaurants are written with the {} codec", codecName);
+  }
+
+  /**
+   * Returns the version byte of the write codec followed by its payload.
+   */
+  public byte[] encode(CachedRestaurants cachedRestaurants) throws IOException {
+    byte[] payload = writeCodec.encode(cachedRestaurants);
+    byte[] bytes = new byte[payload.length + 1];
+    bytes[0] = writeCodec.getVersion();
+    System.arraycopy(payload, 0, bytes, 1, payload.length);
+    return bytes;
+  }
+
+  /**
+   * Decodes a value written by {@link #encode(CachedRestaurants)} with any known codec.
+   * @throws IOException if the value is empty, malformed or written by an unknown codec
+   */
+  public CachedRestaurants decode(byte[] bytes) throws IOException {
+    if (bytes.length == 0) {
+      throw new IOException("Empty cache value");
+    }
+    if (bytes[0] == LEGACY_JSON_START) {
+      return jsonCodec.decode(bytes, 0);
+    }
+    CachedRestaurantsCodec codec = codecsByVersion[bytes[0] & 0xFF];
+    if (codec == null) {
+      throw new IOException("Unknown cache codec version " + (bytes[0] & 0xFF));
+    }
+    return codec.decode(bytes, 1);
+  }
+}
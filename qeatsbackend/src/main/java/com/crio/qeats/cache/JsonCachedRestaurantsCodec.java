@@ -0,0 +1,44 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores cached restaurants as Jackson JSON.
+ */
+@Component
+public class JsonCachedRestaurantsCodec implements CachedRestaurantsCodec {
+
+  public static final String NAME = "json";
+
+  public static final byte VERSION = 1;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public byte getVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public byte[] encode(CachedRestaurants cachedRestaurants) throws IOException {
+    return objectMapper.writeValueAsBytes(cachedRestaurants);
+  }
+
+  @Override
+  public CachedRestaurants decode(byte[] bytes, int offset) throws IOException {
+    return objectMapper.readValue(bytes, offset, bytes.length - offset, CachedRestaurants.class);
+  }
+}
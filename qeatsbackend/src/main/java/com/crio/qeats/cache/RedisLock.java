@@ -0,0 +1,42 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.util.Collections;
+import redis.clients.jedis.Jedis;
+
+/**
+ * Short lived Redis locks, used to let a single node load a cache entry.
+ * A lock is a key set with NX and a TTL, holding a token only its owner knows, so an expired
+ * lock taken over by another node is never released by the previous owner.
+ */
+public class RedisLock {
+
+  private static final String LOCK_PREFIX = "lock:";
+
+  private static final String RELEASE_SCRIPT =
+      "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) "
+          + "else return 0 end";
+
+  private RedisLock() { /* utility */ }
+
+  /**
+   * Takes the lock of a key unless somebody else holds it.
+   * @return true if the lock was taken
+   */
+  public static boolean tryLock(Jedis jedis, String key, String token, long ttlInMillis) {
+    return "OK".equals(jedis.set(LOCK_PREFIX + key, token, "NX", "PX", ttlInMillis));
+  }
+
+  /**
+   * Releases the lock of a key if it is still held with the given token.
+   */
+  public static void unlock(Jedis jedis, String key, String token) {
+    jedis.eval(RELEASE_SCRIPT, Collections.singletonList(LOCK_PREFIX + key),
+        Collections.singletonList(token));
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serialized JSON of each restaurant, which restaurant list responses are assembled from.
+ * A fragment is kept along with the restaurant it was serialized from and only reused for an
+ * equal restaurant, so a restaurant changed by any writer is serialized again on its next
+ * response; restaurants saved through this application are dropped at once.
+ * Responses are assembled in a buffer kept per thread, the way Jackson would have written
+ * them: fields of {@link GetRestaurantsResponse} must be added to {@link #write} too, and
+ * properties of {@link Restaurant} to {@link RestaurantFields} and {@code writeFields}.
+ */
+@Component
+public class RestaurantFragmentCache extends AbstractMongoEventListener<RestaurantEntity> {
+
+  public static final String CACHE_NAME = "restaurantFragments";
+
+  private static final byte[] RESTAURANTS_FIELD = bytesOf("{\"restaurants\":");
+
+  private static final byte[] PARTIAL_FIELD = bytesOf(",\"partial\":true");
+
+  private static final byte[] CORRECTED_SEARCH_FOR_FIELD = bytesOf(",\"correctedSearchFor\":");
+
+  private static final byte[] NULL = bytesOf("null");
+
+  // Buffers grown past this by a large response are not kept for the next one.
+  private static final int MAX_POOLED_BUFFER_BYTES = 1 << 20;
+
+  @Value("${qeats.cache.fragments.maximum-size:20000}")
+  private long maximumSize;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Cache<String, Fragment> cache;
+
+  private final ThreadLocal<ByteArrayOutputStream> buffers =
+      ThreadLocal.withInitial(() -> new ByteArrayOutputStream(8192));
+
+  private static final class Fragment {
+    private final Restaurant restaurant;
+    private final byte[] json;
+
+    private Fragment(Restaurant restaurant, byte[] json) {
+      this.restaurant = restaurant;
+      this.json = json;
+    }
+  }
+
+  @PostConstruct
+  public void initCache() {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+    GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Returns the JSON body of a restaurant list response, as Jackson would write it.
+   * @throws IOException if a restaurant cannot be serialized
+   */
+  public byte[] write(GetRestaurantsResponse getRestaurantsResponse) throws IOException {
+    return write(getRestaurantsResponse, RestaurantFields.ALL, 0, 0);
+  }
+
+  /**
+   * Returns the JSON body of a restaurant list response, with only the given fields of the
+   * restaurants. Restaurants cut down to some fields are serialized on every response.
+   * @param latitude location the distance of restaurants is computed from, if selected
+   * @param longitude location the distance of restaurants is computed from, if selected
+   * @throws IOException if a restaurant cannot be serialized
+   */
+  public byte[] write(GetRestaurantsResponse getRestaurantsResponse, RestaurantFields fields,
+      double latitude, double longitude) throws IOException {
+    ByteArrayOutputStream buffer = buffers.get();
+    buffer.reset();
+    try {
+      buffer.write(RESTAURANTS_FIELD);
+      List<Restaurant> restaurants = getRestaurantsResponse.getRestaurants();
+      if (restaurants == null) {
+        buffer.write(NULL);
+      } else {
+        buffer.write('[');
+        for (int i = 0; i < restaurants.size(); i++) {
+          if (i > 0) {
+            buffer.write(',');
+          }
+          if (fields.isAll()) {
+            buffer.write(fragmentOf(restaurants.get(i)));
+          } else {
+            writeFields(buffer, restaurants.get(i), fields, latitude, longitude);
+          }
+        }
+        buffer.write(']');
+      }
+      if (getRestaurantsResponse.isPartial()) {
+        buffer.write(PARTIAL_FIELD);
+      }
+      if (getRestaurantsResponse.getCorrectedSearchFor() != null) {
+        buffer.write(CORRECTED_SEARCH_FOR_FIELD);
+        buffer.write(objectMapper.writeValueAsBytes(
+            getRestaurantsResponse.getCorrectedSearchFor()));
+      }
+      buffer.write('}');
+      return buffer.toByteArray();
+    } finally {
+      if (buffer.size() > MAX_POOLED_BUFFER_BYTES) {
+        buffers.remove();
+      }
+    }
+  }
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<RestaurantEntity> event) {
+    String restaurantId = event.getSource().getRestaurantId();
+    if (restaurantId != null) {
+      cache.invalidate(restaurantId);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private byte[] fragmentOf(Restaurant restaurant) throws IOException {
+    if (restaurant == null || restaurant.getRestaurantId() == null) {
+      return objectMapper.writeValueAsBytes(restaurant);
+    }
+    Fragment fragment = cache.getIfPresent(restaurant.getRestaurantId());
+    if (fragment != null && fragment.restaurant.equals(restaurant)) {
+      return fragment.json;
+    }
+    byte[] json = objectMapper.writeValueAsBytes(restaurant);
+    // Kept as a copy: the restaurant handed in may be changed once the response is written.
+    cache.put(restaurant.getRestaurantId(), new Fragment(copyOf(restaurant), json));
+    return json;
+  }
+
+  // Fields are written in the order Jackson writes the properties of restaurants.
+  private void writeFields(ByteArrayOutputStream buffer, Restaurant restaurant,
+      RestaurantFields fields, double latitude, double longitude) throws IOException {
+    if (restaurant == null) {
+      buffer.write(NULL);
+      return;
+    }
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+      generator.writeStartObject();
+      if (fields.includes("restaurantId")) {
+        generator.writeStringField("restaurantId", restaurant.getRestaurantId());
+      }
+      if (fields.includes("name")) {
+        generator.writeStringField("name", restaurant.getName());
+      }
+      if (fields.includes("city")) {
+        generator.writeStringField("city", restaurant.getCity());
+      }
+      if (fields.includes("imageUrl")) {
+        generator.writeStringField("imageUrl", restaurant.getImageUrl());
+      }
+      if (fields.includes("latitude")) {
+        generator.writeObjectField("latitude", restaurant.getLatitude());
+      }
+      if (fields.includes("longitude")) {
+        generator.writeObjectField("longitude", restaurant.getLongitude());
+      }
+      if (fields.includes("opensAt")) {
+        generator.writeStringField("opensAt", restaurant.getOpensAt());
+      }
+      if (fields.includes("closesAt")) {
+        generator.writeStringField("closesAt", restaurant.getClosesAt());
+      }
+      if (fields.includes("attributes")) {
+        generator.writeObjectField("attributes", restaurant.getAttributes());
+      }
+      if (fields.includes(RestaurantFields.DISTANCE)) {
+        generator.writeFieldName(RestaurantFields.DISTANCE);
+        if (restaurant.getLatitude() == null || restaurant.getLongitude() == null) {
+          generator.writeNull();
+        } else {
+          // To the meter.
+          generator.writeNumber(Math.round(GeoUtils.findDistanceInKm(latitude, longitude,
+              restaurant.getLatitude(), restaurant.getLongitude()) * 1000) / 1000.0);
+        }
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  private static Restaurant copyOf(Restaurant restaurant) {
+    return new Restaurant(restaurant.getId(), restaurant.getRestaurantId(), restaurant.getName(),
+        restaurant.getCity(), restaurant.getImageUrl(), restaurant.getLatitude(),
+        restaurant.getLongitude(), restaurant.getOpensAt(), restaurant.getClosesAt(),
+        restaurant.getAttributes() == null ? null : new ArrayList<>(restaurant.getAttributes()));
+  }
+
+  private static byte[] bytesOf(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
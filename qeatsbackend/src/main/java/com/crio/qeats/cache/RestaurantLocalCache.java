@@ -0,0 +1,89 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.configs.RedisCacheDestroyedEvent;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process (L1) cache of the deserialized restaurants per geohash cell, in front of Redis.
+ * Entries expire before the Redis ones so the L1 never outlives the L2 copy it was read from.
+ * Hit, miss and eviction counts are published as the {@value #CACHE_NAME} cache metrics.
+ */
+@Component
+@Log4j2
+public class RestaurantLocalCache {
+
+  public static final String CACHE_NAME = "restaurantCells";
+
+  @Value("${qeats.cache.local.maximum-size:10000}")
+  private long maximumSize;
+
+  @Value("${qeats.cache.local.expire-after-write-seconds:60}")
+  private long expireAfterWriteInSeconds;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Cache<String, List<Restaurant>> cache;
+
+  @PostConstruct
+  public void initCache() {
+    if (expireAfterWriteInSeconds <= 0
+        || expireAfterWriteInSeconds >= GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS) {
+      throw new IllegalArgumentException("Local cache expiry must be within (0, "
+          + GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS + ") seconds, got "
+          + expireAfterWriteInSeconds);
+    }
+
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWriteInSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+    GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    log.info("Local restaurant cache holds up to {} cells for {}s", maximumSize,
+        expireAfterWriteInSeconds);
+  }
+
+  /**
+   * Returns the cached restaurants of the given cells, skipping the cells not in the cache.
+   * The lists are read only and shared between callers.
+   */
+  public Map<String, List<Restaurant>> getAllPresent(Iterable<String> cells) {
+    return cache.getAllPresent(cells);
+  }
+
+  public void put(String cell, List<Restaurant> restaurants) {
+    cache.put(cell, Collections.unmodifiableList(restaurants));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  // Drops the L1 copies of the destroyed Redis entries.
+  @EventListener
+  public void onRedisCacheDestroyed(RedisCacheDestroyedEvent event) {
+    invalidateAll();
+  }
+}
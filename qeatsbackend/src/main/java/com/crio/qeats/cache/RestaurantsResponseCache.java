@@ -0,0 +1,103 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.configs.RedisCacheDestroyedEvent;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ready to send response bodies of nearby restaurant lookups, by exact location.
+ * Opening hours have a granularity of one minute, so the open restaurants around a location
+ * only change on minute boundaries, and the serving radius is part of the key. An entry is
+ * therefore only served within the minute it was built in.
+ */
+@Component
+public class RestaurantsResponseCache {
+
+  public static final String CACHE_NAME = "restaurantResponses";
+
+  @Value("${qeats.cache.response.maximum-bytes:67108864}")
+  private long maximumBytes;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Cache<String, byte[]> cache;
+
+  @PostConstruct
+  public void initCache() {
+    cache = CacheBuilder.newBuilder()
+        .maximumWeight(maximumBytes)
+        .<String, byte[]>weigher((key, body) -> body.length)
+        .expireAfterWrite(1, TimeUnit.MINUTES)
+        .recordStats()
+        .build();
+    GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Returns the response body for a location at the given time, building it on a miss.
+   * Concurrent misses for the same entry wait for a single build.
+   * @param loader builds the body; must depend only on the other parameters
+   * @throws IOException if the body cannot be built
+   */
+  public byte[] get(double latitude, double longitude, double servingRadiusInKms,
+      LocalTime currentTime, Callable<byte[]> loader) throws IOException {
+    if (currentTime.getSecond() == 0 && currentTime.getNano() == 0) {
+      // Restaurants opening this minute are still closed at its very first instant.
+      return call(loader);
+    }
+
+    String key = latitude + "," + longitude + "," + servingRadiusInKms + "@"
+        + (currentTime.getHour() * 60 + currentTime.getMinute());
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  // Bodies may have been built from the destroyed Redis entries.
+  @EventListener
+  public void onRedisCacheDestroyed(RedisCacheDestroyedEvent event) {
+    invalidateAll();
+  }
+
+  private static byte[] call(Callable<byte[]> loader) throws IOException {
+    try {
+      return loader.call();
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoHashUtils;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.http.CacheControl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Versions of restaurant list results, for conditional requests on the restaurants API.
+ * The restaurants returned for a request only depend on the request, the serving radius, the
+ * catalog (restaurants and menus) and which restaurants are open. The version is made of the
+ * geohash cell of the request, a fingerprint of the catalog and the open state bucket: the
+ * number of opening or closing times of the day already passed. It is the same on every node
+ * and across restarts, so a matching If-None-Match can be answered before any lookup.
+ * The fingerprint is a SHA-256 digest of the documents of both collections in {@code _id}
+ * order, cut to 128 bits. It is recomputed shortly after catalog writes made through this
+ * application, once per batch of them, and periodically for the others; while it is being
+ * recomputed, no version is handed out.
+ * Response bodies cached before a change of the fingerprint are dropped, so that a body is never
+ * sent with a version newer than its content.
+ */
+@Component
+@Log4j2
+public class ResultVersions extends AbstractMongoEventListener<Object> {
+
+  private static final int MINUTES_PER_DAY = 24 * 60;
+
+  private static final int FINGERPRINT_BYTES = 16;
+
+  @Value("${qeats.etag.max-age-seconds:5}")
+  private long maxAgeInSeconds;
+
+  @Value("${qeats.etag.write-refresh-delay-ms:1000}")
+  private long writeRefreshDelayInMillis;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private RestaurantsResponseCache restaurantsResponseCache;
+
+  private volatile boolean stale = true;
+
+  private volatile String catalogFingerprint = "";
+
+  // Minutes of the day restaurants open or close at, sorted.
+  private volatile int[] openStateBoundaries = new int[0];
+
+  private final AtomicLong catalogWrites = new AtomicLong();
+
+  private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+  private final ScheduledExecutorService refreshExecutor = Executors
+      .newSingleThreadScheduledExecutor(new CustomizableThreadFactory("result-versions-"));
+
+  /**
+   * Returns the entity tag of the restaurants returned for the request at the given time.
+   * @return quoted entity tag, or null if the results have no known version right now
+   */
+  public String eTagOf(GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime,
+      double servingRadiusInKms) {
+    if (stale || (currentTime.getSecond() == 0 && currentTime.getNano() == 0)) {
+      // Restaurants opening this minute are still closed at its very first instant.
+      return null;
+    }
+    String cell = GeoHashUtils.cellOf(getRestaurantsRequest.getLatitude(),
+        getRestaurantsRequest.getLongitude(), GlobalConstants.REDIS_CELL_GEOHASH_PRECISION);
+    int requestHash = Objects.hash(getRestaurantsRequest.getLatitude(),
+        getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(),
+        getRestaurantsRequest.getAttributes(), getRestaurantsRequest.getFields(),
+        servingRadiusInKms);
+    return "\"" + cell + "-" + catalogFingerprint + "-"
+        + openStateBucket(minuteOf(currentTime)) + "-" + Integer.toHexString(requestHash) + "\"";
+  }
+
+  /**
+   * Returns whether an If-None-Match header lists the entity tag, weakly compared.
+   */
+  public static boolean matches(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch == null || eTag == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(eTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the caching hints of versioned results: shared caches may serve them up to
+   * {@code qeats.etag.max-age-seconds}, but never past the next opening or closing time.
+   */
+  public CacheControl cacheControlOf(LocalTime currentTime) {
+    int[] boundaries = openStateBoundaries;
+    long maxAge = maxAgeInSeconds;
+    if (boundaries.length > 0) {
+      int minute = minuteOf(currentTime);
+      int bucket = openStateBucket(minute);
+      int nextBoundary = bucket < boundaries.length ? boundaries[bucket]
+          : boundaries[0] + MINUTES_PER_DAY;
+      long secondsToNextBoundary = nextBoundary * 60L - currentTime.toSecondOfDay();
+      maxAge = Math.max(0, Math.min(maxAge, secondsToNextBoundary));
+    }
+    return CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+  }
+
+  /**
+   * Recomputes the catalog fingerprint and the opening and closing times.
+   */
+  @Scheduled(fixedDelayString = "${qeats.etag.refresh-interval-ms:300000}")
+  public synchronized void refreshCatalog() {
+    // The scan may miss writes made while it runs, they queue another refresh.
+    long writesBefore = catalogWrites.get();
+    try {
+      TreeSet<Integer> boundaries = new TreeSet<>();
+      MessageDigest restaurantsDigest = sha256();
+      for (RawBsonDocument document : findInIdOrder(RestaurantEntity.class)) {
+        update(restaurantsDigest, document);
+        addBoundary(boundaries, document.get("opensAt"));
+        addBoundary(boundaries, document.get("closesAt"));
+      }
+      MessageDigest menusDigest = sha256();
+      for (RawBsonDocument document : findInIdOrder(MenuEntity.class)) {
+        update(menusDigest, document);
+      }
+      // Each collection is digested apart, so documents cannot move from one to the other.
+      MessageDigest catalogDigest = sha256();
+      catalogDigest.update(restaurantsDigest.digest());
+      catalogDigest.update(menusDigest.digest());
+      String fingerprint = toHex(catalogDigest.digest(), FINGERPRINT_BYTES);
+
+      openStateBoundaries = boundaries.stream().mapToInt(Integer::intValue).toArray();
+      if (!fingerprint.equals(catalogFingerprint)) {
+        restaurantsResponseCache.invalidateAll();
+        catalogFingerprint = fingerprint;
+      }
+      stale = catalogWrites.get() != writesBefore;
+    } catch (RuntimeException e) {
+      log.warn("Could not compute the catalog version", e);
+    }
+  }
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<Object> event) {
+    catalogChanged(event.getCollectionName());
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<Object> event) {
+    catalogChanged(event.getCollectionName());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    refreshExecutor.shutdownNow();
+  }
+
+  private void catalogChanged(String collectionName) {
+    if (!mongoTemplate.getCollectionName(RestaurantEntity.class).equals(collectionName)
+        && !mongoTemplate.getCollectionName(MenuEntity.class).equals(collectionName)) {
+      return;
+    }
+    stale = true;
+    catalogWrites.incrementAndGet();
+    // Writes made until the refresh starts are covered by a single scan.
+    if (refreshQueued.compareAndSet(false, true)) {
+      refreshExecutor.schedule(() -> {
+        refreshQueued.set(false);
+        refreshCatalog();
+      }, writeRefreshDelayInMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private int openStateBucket(int minute) {
+    int[] boundaries = openStateBoundaries;
+    int bucket = Arrays.binarySearch(boundaries, minute);
+    // The number of boundaries at or before the minute.
+    return bucket >= 0 ? bucket + 1 : -bucket - 1;
+  }
+
+  private static int minuteOf(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  private Iterable<RawBsonDocument> findInIdOrder(Class<?> entityClass) {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+        .withDocumentClass(RawBsonDocument.class)
+        .find()
+        .sort(new Document("_id", 1));
+  }
+
+  // Documents are digested as stored; BSON documents start with their length, so the
+  // concatenation of two of them cannot be read as another pair.
+  private static void update(MessageDigest digest, RawBsonDocument document) {
+    digest.update(document.getByteBuffer().asNIO());
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform implements SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes, int length) {
+    StringBuilder hex = new StringBuilder(length * 2);
+    for (int i = 0; i < length; i++) {
+      hex.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16))
+          .append(Character.forDigit(bytes[i] & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  private static void addBoundary(TreeSet<Integer> boundaries, BsonValue value) {
+    if (value == null || !value.isString()) {
+      return;
+    }
+    // Restaurants open several times a day list their opening or closing times.
+    for (String time : value.asString().getValue().split(",")) {
+      try {
+        boundaries.add(minuteOf(LocalTime.parse(time.trim())));
+      } catch (DateTimeParseException e) {
+        log.warn("Ignoring unparsable opening time {}", time);
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same keys within the JVM.
+ * The first caller asking for a key loads it; callers asking for it while that load is running
+ * wait for its result instead of loading it again. Keys are claimed individually, so a batch
+ * only loads the keys nobody else is already loading.
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the values of the given keys, loading the keys not already being loaded.
+   * @param keys keys to return
+   * @param loader loads a set of keys; must return a value for each of them
+   * @return a value for every key
+   */
+  public Map<K, V> load(Set<K> keys, Function<Set<K>, Map<K, V>> loader) {
+    Map<K, CompletableFuture<V>> claimed = new HashMap<>();
+    Map<K, CompletableFuture<V>> joined = new HashMap<>();
+    for (K key : keys) {
+      CompletableFuture<V> future = new CompletableFuture<>();
+      CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+      if (running == null) {
+        claimed.put(key, future);
+      } else {
+        joined.put(key, running);
+      }
+    }
+
+    Map<K, V> values = new HashMap<>();
+    if (!claimed.isEmpty()) {
+      try {
+        Map<K, V> loaded = loader.apply(new LinkedHashSet<>(claimed.keySet()));
+        for (Map.Entry<K, CompletableFuture<V>> entry : claimed.entrySet()) {
+          if (!loaded.containsKey(entry.getKey())) {
+            throw new IllegalStateException("Loader returned no value for " + entry.getKey());
+          }
+          V value = loaded.get(entry.getKey());
+          entry.getValue().complete(value);
+          values.put(entry.getKey(), value);
+        }
+      } catch (RuntimeException | Error e) {
+        claimed.values().forEach(future -> future.completeExceptionally(e));
+        throw e;
+      } finally {
+        claimed.forEach(inFlight::remove);
+      }
+    }
+
+    for (Map.Entry<K, CompletableFuture<V>> entry : joined.entrySet()) {
+      try {
+        values.put(entry.getKey(), entry.getValue().join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * Returns the number of keys being loaded.
+   */
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+}
@@ -0,0 +1,20 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published once the Redis cache has been flushed, for in-process copies of its entries to be
+ * dropped as well.
+ */
+public class RedisCacheDestroyedEvent extends ApplicationEvent {
+
+  public RedisCacheDestroyedEvent(RedisConfiguration source) {
+    super(source);
+  }
+}
@@ -1,12 +1,13 @@
 package com.crio.qeats.configs;
 
 import lombok.Data;
-import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 import java.time.Duration;
 import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 
@@ -33,6 +34,9 @@ public class RedisConfiguration {
   private int redisPort;
   private JedisPool jedisPool;
 
+  @Autowired
+  private ApplicationEventPublisher applicationEventPublisher;
+
 
   @Value("${spring.redis.port}")
   public void setRedisPort(int port) {
@@ -58,25 +62,8 @@ public class RedisConfiguration {
 
 
   /**
-   * Checks is cache is intiailized and available.
-   * TIP: This would generally mean checking via {@link JedisPool}
-   * @return true / false if cache is available or not.
-   */
-  public boolean isCacheAvailable() {
-
-    if (jedisPool == null) {
-      return false;
-    }
-    try (Jedis jedis = this.getJedisPool().getResource()) {
-      return true;
-    } catch (Exception e) {
-      // e.printStackTrace();
-      return false;
-    }
-  }
-
-  /**
-   * Destroy the cache.
+   * Destroy the cache, and let the in-process copies of its entries be dropped through a
+   * {@link RedisCacheDestroyedEvent}.
    * TIP: This is useful if cache is stale or while performing tests.
    */
   public void destroyCache() {
@@ -86,6 +73,7 @@ public class RedisConfiguration {
       jedisPool.destroy();
       jedisPool = null;
     }
+    applicationEventPublisher.publishEvent(new RedisCacheDestroyedEvent(this));
   }
 
   private static JedisPoolConfig buildPoolConfig() {
@@ -93,8 +81,10 @@ public class RedisConfiguration {
     poolConfig.setMaxTotal(128);
     poolConfig.setMaxIdle(128);
     poolConfig.setMinIdle(16);
-    poolConfig.setTestOnBorrow(true);
-    poolConfig.setTestOnReturn(true);
+    // Broken connections surface as command failures, reported to the CacheHealthTracker,
+    // and idle ones are checked in the background; no need to PING around each command.
+    poolConfig.setTestOnBorrow(false);
+    poolConfig.setTestOnReturn(false);
     poolConfig.setTestWhileIdle(true);
     poolConfig.setMinEvictableIdleTimeMillis(Duration.ofSeconds(60).toMillis());
     poolConfig.setTimeBetweenEvictionRunsMillis(Duration.ofSeconds(30).toMillis());
@@ -6,21 +6,33 @@
 
 package com.crio.qeats.controller;
 
+import com.crio.qeats.cache.RestaurantFragmentCache;
+import com.crio.qeats.cache.RestaurantsResponseCache;
+import com.crio.qeats.cache.ResultVersions;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import com.crio.qeats.services.RestaurantService;
+import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import javax.validation.Valid;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -35,6 +47,7 @@ public class RestaurantController {
   public static final String RESTAURANT_API_ENDPOINT = "/qeats/v1";
   public static final String RESTAURANTS_API = "/restaurants";
   public static final String MENU_API = "/menu";
+  public static final String SUGGEST_API = "/suggest";
   public static final String CART_API = "/cart";
   public static final String CART_ITEM_API = "/cart/item";
   public static final String CART_CLEAR_API = "/cart/clear";
@@ -44,35 +57,64 @@ public class RestaurantController {
   @Autowired
   private RestaurantService restaurantService;
 
+  @Autowired
+  private RestaurantsResponseCache restaurantsResponseCache;
+
+  @Autowired
+  private RestaurantFragmentCache restaurantFragmentCache;
+
+  @Autowired
+  private ResultVersions resultVersions;
 
 
   @GetMapping(RESTAURANT_API_ENDPOINT + RESTAURANTS_API)
-  public ResponseEntity<GetRestaurantsResponse> getRestaurants(
-      @Valid GetRestaurantsRequest getRestaurantsRequest) {
+  public ResponseEntity<?> getRestaurants(
+      @Valid GetRestaurantsRequest getRestaurantsRequest,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+      throws IOException {
       
     //log.info("getRestaurants called with {}", getRestaurantsRequest);
     GetRestaurantsResponse getRestaurantsResponse  = null;
     if(getRestaurantsRequest.getLatitude() != null 
     && getRestaurantsRequest.getLongitude() != null){
+      LocalTime currentTime = LocalTime.now();
+      // Results unchanged since the client got them are confirmed before looking anything up.
+      String eTag = resultVersions.eTagOf(getRestaurantsRequest, currentTime,
+          restaurantService.getServingRadiusInKms(currentTime));
+      CacheControl cacheControl = null;
+      if (eTag != null) {
+        cacheControl = resultVersions.cacheControlOf(currentTime);
+        if (ResultVersions.matches(ifNoneMatch, eTag)) {
+          return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag)
+              .cacheControl(cacheControl).build();
+        }
+      }
+      RestaurantFields fields = RestaurantFields.parse(getRestaurantsRequest.getFields());
        if(getRestaurantsRequest.getSearchFor() != null && !getRestaurantsRequest.getSearchFor().isEmpty()){
-      // getRestaurantsResponse =   restaurantService.findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.now());
       getRestaurantsResponse = restaurantService
-       .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.now());
-
+       .findRestaurantsBySearchQueryMt(getRestaurantsRequest, currentTime);
+      byte[] body = writeBody(getRestaurantsRequest, getRestaurantsResponse, fields);
+      // Partial results are not final, they get no version.
+      return getRestaurantsResponse.isPartial() ? jsonResponse(body, null, null)
+          : jsonResponse(body, eTag, cacheControl);
     }
     else{
-      //CHECKSTYLE:OFF
-      getRestaurantsResponse = restaurantService
-          .findAllRestaurantsCloseBy(getRestaurantsRequest, LocalTime.now());
-      //log.info("getRestaurants returned {}", getRestaurantsResponse);
-      //CHECKSTYLE:ON
-      List<Restaurant> rList=getRestaurantsResponse.getRestaurants();
-      for (Restaurant restaurant : rList) {
-        restaurant.setName(restaurant.getName().replace('é', 'e'));
+      // Responses are cached per location only, attribute filtered ones and ones with some
+      // fields only are not cached.
+      if ((getRestaurantsRequest.getAttributes() == null
+          || getRestaurantsRequest.getAttributes().trim().isEmpty()) && fields.isAll()) {
+        // The normalized body is cached as bytes and copied to the response as is.
+        byte[] body = restaurantsResponseCache.get(getRestaurantsRequest.getLatitude(),
+            getRestaurantsRequest.getLongitude(),
+            restaurantService.getServingRadiusInKms(currentTime), currentTime,
+            () -> restaurantFragmentCache.write(
+                findAllRestaurantsCloseBy(getRestaurantsRequest, currentTime)));
+        return jsonResponse(body, eTag, cacheControl);
       }
+      getRestaurantsResponse = findAllRestaurantsCloseBy(getRestaurantsRequest, currentTime);
+      return jsonResponse(writeBody(getRestaurantsRequest, getRestaurantsResponse, fields),
+          eTag, cacheControl);
     }
-     return ResponseEntity.ok().body(getRestaurantsResponse);
-
   }
   return ResponseEntity.ok().body(getRestaurantsResponse);
   // TODO: CRIO_TASK_MODULE_MULTITHREADING
@@ -145,6 +187,62 @@ public class RestaurantController {
     
   }
 
+  // Completions of a partially typed search, answered from memory without querying Mongo.
+  // API URI: /qeats/v1/suggest?prefix=udu
+  // Method: GET
+  // Query Params: prefix
+  // Success Output:
+  // HTTP Code: 200
+  // {
+  //  "suggestions": [
+  //    {
+  //      "text": "Udupi",
+  //      "type": "ATTRIBUTES",
+  //      "weight": 12
+  //    }
+  //  ]
+  // }
+  @GetMapping(RESTAURANT_API_ENDPOINT + SUGGEST_API)
+  public ResponseEntity<GetSuggestionsResponse> getSuggestions(
+      @Valid GetSuggestionsRequest getSuggestionsRequest) {
+    return ResponseEntity.ok().body(restaurantService.findSuggestions(getSuggestionsRequest));
+  }
+
+  // Restaurant list bodies are assembled from the cached JSON of each restaurant.
+  // Bodies without a version are sent without an entity tag or caching hints.
+  private static ResponseEntity<byte[]> jsonResponse(byte[] body, String eTag,
+      CacheControl cacheControl) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (eTag != null) {
+      builder.eTag(eTag).cacheControl(cacheControl);
+    }
+    return builder.contentType(MediaType.APPLICATION_JSON_UTF8)
+        .contentLength(body.length).body(body);
+  }
+
+  private byte[] writeBody(GetRestaurantsRequest getRestaurantsRequest,
+      GetRestaurantsResponse getRestaurantsResponse, RestaurantFields fields) throws IOException {
+    return restaurantFragmentCache.write(getRestaurantsResponse, fields,
+        getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude());
+  }
+
+  private GetRestaurantsResponse findAllRestaurantsCloseBy(
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
+    //CHECKSTYLE:OFF
+    GetRestaurantsResponse getRestaurantsResponse = restaurantService
+        .findAllRestaurantsCloseBy(getRestaurantsRequest, currentTime);
+    //log.info("getRestaurants returned {}", getRestaurantsResponse);
+    //CHECKSTYLE:ON
+    List<Restaurant> rList=getRestaurantsResponse.getRestaurants();
+    for (Restaurant restaurant : rList) {
+      // Names are not loaded when other fields only are requested.
+      if (restaurant.getName() != null) {
+        restaurant.setName(restaurant.getName().replace('é', 'e'));
+      }
+    }
+    return getRestaurantsResponse;
+  }
+
   // TIP(MODULE_MENUAPI): Model Implementation for getting menu given a restaurantId.
   // Get the Menu for the given restaurantId
   // API URI: /qeats/v1/menu?restaurantId=11
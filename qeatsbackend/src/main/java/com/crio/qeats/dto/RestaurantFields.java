@@ -0,0 +1,91 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields of the restaurants a restaurants request asks for, such as
+ * {@code restaurantId,name,imageUrl,distance}. Besides the properties of {@link Restaurant},
+ * {@code distance} is the distance of the restaurant from the requested location, in
+ * kilometers. Without a selection restaurants are returned whole, without their distance.
+ */
+public final class RestaurantFields {
+
+  public static final String DISTANCE = "distance";
+
+  private static final String NAME = "(restaurantId|name|city|imageUrl|latitude|longitude"
+      + "|opensAt|closesAt|attributes|distance)";
+
+  /**
+   * Valid selections: a comma separated list of the fields above.
+   */
+  public static final String PATTERN = "^\\s*" + NAME + "(\\s*,\\s*" + NAME + ")*\\s*$";
+
+  public static final RestaurantFields ALL = new RestaurantFields(null);
+
+  // Selected fields, or null when all the properties of restaurants are.
+  private final Set<String> names;
+
+  private RestaurantFields(Set<String> names) {
+    this.names = names;
+  }
+
+  /**
+   * Parses a selection, as validated by {@link #PATTERN}.
+   * @param text selection as sent by clients, may be null or blank to select all the properties
+   */
+  public static RestaurantFields parse(String text) {
+    if (text == null || text.trim().isEmpty()) {
+      return ALL;
+    }
+    Set<String> names = new LinkedHashSet<>();
+    for (String name : text.split(",")) {
+      if (!name.trim().isEmpty()) {
+        names.add(name.trim());
+      }
+    }
+    return new RestaurantFields(Collections.unmodifiableSet(names));
+  }
+
+  public boolean isAll() {
+    return names == null;
+  }
+
+  public boolean includes(String name) {
+    return names == null ? !DISTANCE.equals(name) : names.contains(name);
+  }
+
+  /**
+   * Returns the fields of restaurant documents the selection is made of.
+   * The distance is computed from the location of the restaurant.
+   */
+  public List<String> getDocumentFields() {
+    List<String> documentFields = new ArrayList<>();
+    if (names != null) {
+      for (String name : names) {
+        if (!DISTANCE.equals(name)) {
+          documentFields.add(name);
+        }
+      }
+      if (names.contains(DISTANCE)) {
+        documentFields.add("latitude");
+        documentFields.add("longitude");
+      }
+    }
+    return documentFields;
+  }
+
+  @Override
+  public String toString() {
+    return names == null ? "" : String.join(",", names);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import com.crio.qeats.repositoryservices.SearchSource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A completion offered while typing a search, e.g.
+// {
+//  "text": "Udupi Bhavan",
+//  "type": "NAME",
+//  "weight": 3
+// }
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Suggestion {
+
+  private String text;
+
+  // NAME for restaurant names, ATTRIBUTES for cuisines and ITEM_NAME for menu items.
+  private SearchSource type;
+
+  // Number of restaurants or menus it appears on; heavier suggestions are listed first.
+  private long weight;
+}
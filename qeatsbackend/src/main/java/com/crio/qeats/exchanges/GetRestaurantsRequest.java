@@ -6,9 +6,11 @@
 
 package com.crio.qeats.exchanges;
 
+import com.crio.qeats.dto.RestaurantFields;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
@@ -51,6 +53,16 @@ public class GetRestaurantsRequest {
     
       
      private  String searchFor;
+
+     // Optional attribute filter, e.g. attributes=south indian|udupi,spicy: restaurants must
+     // have one of the | separated attributes of every comma separated clause, as a cuisine or
+     // as an item attribute.
+     private String attributes;
+
+     // Optional fields restaurants are returned with, e.g. fields=restaurantId,name,distance;
+     // see RestaurantFields.
+     @Pattern(regexp = RestaurantFields.PATTERN)
+     private String fields;
      
 
 }
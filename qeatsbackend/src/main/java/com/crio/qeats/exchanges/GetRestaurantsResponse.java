@@ -7,6 +7,7 @@
 package com.crio.qeats.exchanges;
 
 import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -55,6 +56,14 @@ public class GetRestaurantsResponse {
     
     List<Restaurant> restaurants;
 
+    // Set when some search sources did not answer in time; only serialized when set.
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean partial;
+
+    // The corrected query results were found with, when the query as typed matched nothing.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String correctedSearchFor;
+
     public GetRestaurantsResponse() {
 
     }
@@ -71,6 +80,22 @@ public class GetRestaurantsResponse {
         this.restaurants = restaurants;
     }
 
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    public String getCorrectedSearchFor() {
+        return correctedSearchFor;
+    }
+
+    public void setCorrectedSearchFor(String correctedSearchFor) {
+        this.correctedSearchFor = correctedSearchFor;
+    }
+
 
     
 
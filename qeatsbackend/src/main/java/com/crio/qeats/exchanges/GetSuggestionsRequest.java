@@ -0,0 +1,22 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Deserializes the query params of /qeats/v1/suggest?prefix=udu
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetSuggestionsRequest {
+
+  @NotNull
+  private String prefix;
+}
@@ -0,0 +1,30 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.dto.Suggestion;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "suggestions": [
+//    {
+//      "text": "Udupi Bhavan",
+//      "type": "NAME",
+//      "weight": 3
+//    }
+//  ]
+// }
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetSuggestionsResponse {
+
+  private List<Suggestion> suggestions;
+}
@@ -6,6 +6,9 @@ public class GlobalConstants {
   // Amount of time after which the redis entries should expire.
   public static final int REDIS_ENTRY_EXPIRY_IN_SECONDS = 3600;
 
+  // Precision of the geohash cells restaurants are cached by (about 4.9km x 4.9km).
+  public static final int REDIS_CELL_GEOHASH_PRECISION = 5;
+
   // TIP(MODULE_RABBITMQ): RabbitMQ related configs.
   public static final String EXCHANGE_NAME = "rabbitmq-exchange";
   public static final String QUEUE_NAME = "rabbitmq-queue";
@@ -0,0 +1,83 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Attribute filter of a restaurants request, such as {@code south indian|udupi,spicy}.
+ * Clauses are separated by commas and must all hold; a clause holds when the restaurant has any
+ * of its {@code |} separated attributes, either as a cuisine or on one of its menu items.
+ * Attributes are compared as whole phrases, after {@link SearchTokens#normalizePhrase}.
+ */
+public final class AttributeFilter {
+
+  private final List<Set<String>> clauses;
+
+  private AttributeFilter(List<Set<String>> clauses) {
+    this.clauses = clauses;
+  }
+
+  /**
+   * Parses a filter, ignoring blank attributes and clauses.
+   * @param text filter as sent by clients, may be null
+   */
+  public static AttributeFilter parse(String text) {
+    List<Set<String>> clauses = new ArrayList<>();
+    if (text != null) {
+      for (String clause : text.split(",")) {
+        Set<String> attributes = new LinkedHashSet<>();
+        for (String attribute : clause.split("\\|")) {
+          String phrase = SearchTokens.normalizePhrase(attribute);
+          if (!phrase.isEmpty()) {
+            attributes.add(phrase);
+          }
+        }
+        if (!attributes.isEmpty()) {
+          clauses.add(Collections.unmodifiableSet(attributes));
+        }
+      }
+    }
+    return new AttributeFilter(Collections.unmodifiableList(clauses));
+  }
+
+  /**
+   * Returns the clauses, each one as its set of normalized attributes.
+   */
+  public List<Set<String>> getClauses() {
+    return clauses;
+  }
+
+  public boolean isEmpty() {
+    return clauses.isEmpty();
+  }
+
+  /**
+   * Evaluates the filter against the normalized attributes of a restaurant and its items.
+   */
+  public boolean matches(Set<String> attributes) {
+    for (Set<String> clause : clauses) {
+      if (Collections.disjoint(clause, attributes)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    List<String> texts = new ArrayList<>();
+    for (Set<String> clause : clauses) {
+      texts.add(String.join("|", clause));
+    }
+    return String.join(",", texts);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import java.util.Arrays;
+
+/**
+ * Posting lists stored as byte arrays: the number of ordinals, then the first ordinal and the
+ * gaps between consecutive ones, each as an unsigned varint.
+ * Ordinals of a posting list are close to each other, so most gaps fit in one byte, a quarter
+ * of an int.
+ * Whole lists are encoded at once; {@link #insert} and {@link #remove} re-encode the list they
+ * change, so they are only meant for single updates, not for building lists.
+ */
+public final class CompressedPostings {
+
+  public static final byte[] EMPTY = encode(new int[0], 0);
+
+  private CompressedPostings() {
+  }
+
+  /**
+   * Encodes the first {@code length} ordinals of the array.
+   * @param sortedOrdinals distinct ordinals in increasing order
+   */
+  public static byte[] encode(int[] sortedOrdinals, int length) {
+    byte[] buffer = new byte[5 * (length + 1)];
+    int position = writeVarint(buffer, 0, length);
+    int previous = 0;
+    for (int i = 0; i < length; i++) {
+      position = writeVarint(buffer, position, sortedOrdinals[i] - previous);
+      previous = sortedOrdinals[i];
+    }
+    return Arrays.copyOf(buffer, position);
+  }
+
+  public static int[] decode(byte[] postings) {
+    int[] header = new int[1];
+    int position = readVarint(postings, 0, header);
+    int[] ordinals = new int[header[0]];
+    int[] value = new int[1];
+    int previous = 0;
+    for (int i = 0; i < ordinals.length; i++) {
+      position = readVarint(postings, position, value);
+      previous += value[0];
+      ordinals[i] = previous;
+    }
+    return ordinals;
+  }
+
+  /**
+   * Returns the number of ordinals, without decoding them.
+   */
+  public static int size(byte[] postings) {
+    int[] header = new int[1];
+    readVarint(postings, 0, header);
+    return header[0];
+  }
+
+  public static byte[] insert(byte[] postings, int ordinal) {
+    int[] ordinals = decode(postings);
+    int position = Arrays.binarySearch(ordinals, ordinal);
+    if (position >= 0) {
+      return postings;
+    }
+    position = -position - 1;
+    int[] inserted = new int[ordinals.length + 1];
+    System.arraycopy(ordinals, 0, inserted, 0, position);
+    inserted[position] = ordinal;
+    System.arraycopy(ordinals, position, inserted, position + 1, ordinals.length - position);
+    return encode(inserted, inserted.length);
+  }
+
+  public static byte[] remove(byte[] postings, int ordinal) {
+    int[] ordinals = decode(postings);
+    int position = Arrays.binarySearch(ordinals, ordinal);
+    if (position < 0) {
+      return postings;
+    }
+    System.arraycopy(ordinals, position + 1, ordinals, position, ordinals.length - position - 1);
+    return encode(ordinals, ordinals.length - 1);
+  }
+
+  private static int writeVarint(byte[] buffer, int position, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+    return position;
+  }
+
+  private static int readVarint(byte[] buffer, int position, int[] value) {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer[position++];
+      result |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    value[0] = result;
+    return position;
+  }
+}
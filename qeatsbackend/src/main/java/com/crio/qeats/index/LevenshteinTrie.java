@@ -0,0 +1,135 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prefix trie over words, for finding the closest known word to a misspelled one.
+ * A lookup walks the trie depth first, computing one row of the Levenshtein matrix per
+ * character of the prefix so far, and leaves a subtree as soon as every entry of its row is
+ * over the distance accepted: like a Levenshtein automaton, it only visits the prefixes within
+ * that distance of the word, however large the vocabulary.
+ */
+public final class LevenshteinTrie {
+
+  private final Node root = new Node();
+
+  private int size;
+
+  private static final class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private String word;
+    private long frequency;
+  }
+
+  private static final class Search {
+    private final String word;
+    private final int maxDistance;
+    private String best;
+    private long bestFrequency;
+    private int bestDistance;
+
+    private Search(String word, int maxDistance) {
+      this.word = word;
+      this.maxDistance = maxDistance;
+      this.bestDistance = maxDistance + 1;
+    }
+  }
+
+  /**
+   * Builds a trie over the given words.
+   * @param frequencies words and how often they occur, to break ties between closest words
+   */
+  public static LevenshteinTrie build(Map<String, Long> frequencies) {
+    LevenshteinTrie trie = new LevenshteinTrie();
+    frequencies.forEach(trie::add);
+    return trie;
+  }
+
+  private void add(String word, long frequency) {
+    Node node = root;
+    for (int i = 0; i < word.length(); i++) {
+      node = node.children.computeIfAbsent(word.charAt(i), character -> new Node());
+    }
+    if (node.word == null) {
+      size++;
+    }
+    node.word = word;
+    node.frequency = frequency;
+  }
+
+  /**
+   * Returns the known word closest to the given one, the most frequent one among equally
+   * close words.
+   * @param maxDistance largest edit distance accepted
+   * @return the closest word, or null if none is within the distance
+   */
+  public String findClosest(String word, int maxDistance) {
+    if (maxDistance < 0) {
+      return null;
+    }
+    Search search = new Search(word, maxDistance);
+    int[] firstRow = new int[word.length() + 1];
+    for (int j = 0; j <= word.length(); j++) {
+      firstRow[j] = j;
+    }
+    visit(root, firstRow, search);
+    return search.best;
+  }
+
+  private static void visit(Node node, int[] row, Search search) {
+    String word = search.word;
+    int distance = row[word.length()];
+    if (node.word != null && (distance < search.bestDistance
+        || (distance == search.bestDistance && search.best != null
+        && (node.frequency > search.bestFrequency
+        || (node.frequency == search.bestFrequency && node.word.compareTo(search.best) < 0))))) {
+      search.best = node.word;
+      search.bestFrequency = node.frequency;
+      search.bestDistance = distance;
+    }
+
+    // The child following the word is visited first: finding a close match early narrows the
+    // distance accepted for the rest of the walk.
+    int depth = row[0];
+    Node nextChild = depth < word.length() ? node.children.get(word.charAt(depth)) : null;
+    if (nextChild != null) {
+      visitChild(nextChild, word.charAt(depth), row, search);
+    }
+    for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+      if (child.getValue() != nextChild) {
+        visitChild(child.getValue(), child.getKey(), row, search);
+      }
+    }
+  }
+
+  private static void visitChild(Node child, char c, int[] row, Search search) {
+    String word = search.word;
+    int[] nextRow = new int[row.length];
+    nextRow[0] = row[0] + 1;
+    int rowMinimum = nextRow[0];
+    for (int j = 1; j <= word.length(); j++) {
+      int substitution = row[j - 1] + (c == word.charAt(j - 1) ? 0 : 1);
+      nextRow[j] = Math.min(substitution, Math.min(row[j], nextRow[j - 1]) + 1);
+      rowMinimum = Math.min(rowMinimum, nextRow[j]);
+    }
+    // Distances never decrease down the trie, and only closer words than the best one so far
+    // are left worth finding.
+    if (rowMinimum <= Math.min(search.maxDistance, search.bestDistance)) {
+      visit(child, nextRow, search);
+    }
+  }
+
+  /**
+   * Returns the number of distinct words in the trie.
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Corrects misspelled search queries against the words restaurants, cuisines and items are
+ * named with. Each unknown token of a query is replaced by the closest known word, within an
+ * edit distance growing with the token length: short tokens are too ambiguous to correct.
+ */
+public final class QueryCorrector {
+
+  public static final QueryCorrector EMPTY = new QueryCorrector(new HashMap<>());
+
+  // Tokens shorter than this are left alone, longer ones get one edit per this many chars.
+  private static final int CHARS_PER_EDIT = 4;
+
+  private final Map<String, Long> frequencies;
+
+  private final LevenshteinTrie words;
+
+  /**
+   * Builds a corrector over the given vocabulary.
+   * @param frequencies normalized words and how often they occur
+   */
+  public QueryCorrector(Map<String, Long> frequencies) {
+    this.frequencies = frequencies;
+    this.words = LevenshteinTrie.build(frequencies);
+  }
+
+  /**
+   * Returns the query with its unknown tokens replaced by their closest known word.
+   * @param maxDistance largest edit distance accepted for any token
+   * @return the corrected query as normalized tokens separated by spaces, or null if no token
+   *     of the query could be corrected
+   */
+  public String correct(String query, int maxDistance) {
+    List<String> correctedTokens = new ArrayList<>();
+    boolean corrected = false;
+    for (String token : SearchTokens.tokenize(query)) {
+      String correctedToken = null;
+      if (!frequencies.containsKey(token)) {
+        correctedToken = words.findClosest(token,
+            Math.min(maxDistance, token.length() / CHARS_PER_EDIT));
+      }
+      if (correctedToken == null || correctedToken.equals(token)) {
+        correctedTokens.add(token);
+      } else {
+        correctedTokens.add(correctedToken);
+        corrected = true;
+      }
+    }
+    return corrected ? String.join(" ", correctedTokens) : null;
+  }
+
+  /**
+   * Returns the number of distinct words known.
+   */
+  public int size() {
+    return words.size();
+  }
+}
@@ -0,0 +1,125 @@
+
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable uniform latitude/longitude grid over a snapshot of restaurants.
+ * Each cell holds the ordinals (positions in the snapshot) of the restaurants located in it, so
+ * a lookup only touches the cells overlapping the bounding box of the search circle and returns
+ * candidates in the same order as the snapshot.
+ */
+public final class RestaurantGridIndex {
+
+  private static final int[] EMPTY_CELL = new int[0];
+
+  private final double cellSizeInDegrees;
+  private final int columns;
+  private final List<RestaurantEntity> restaurants;
+  private final Map<Long, int[]> cells;
+
+  private RestaurantGridIndex(double cellSizeInDegrees, List<RestaurantEntity> restaurants) {
+    this.cellSizeInDegrees = cellSizeInDegrees;
+    this.columns = (int) Math.ceil(360 / cellSizeInDegrees);
+    this.restaurants = Collections.unmodifiableList(restaurants);
+
+    Map<Long, List<Integer>> buckets = new HashMap<>();
+    for (int ordinal = 0; ordinal < restaurants.size(); ordinal++) {
+      RestaurantEntity restaurantEntity = restaurants.get(ordinal);
+      if (restaurantEntity.getLatitude() == null || restaurantEntity.getLongitude() == null) {
+        continue;
+      }
+      long key = cellKey(rowOf(restaurantEntity.getLatitude()),
+          columnOf(restaurantEntity.getLongitude()));
+      buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(ordinal);
+    }
+
+    this.cells = new HashMap<>(buckets.size() * 2);
+    for (Map.Entry<Long, List<Integer>> bucket : buckets.entrySet()) {
+      cells.put(bucket.getKey(), bucket.getValue().stream().mapToInt(Integer::intValue).toArray());
+    }
+  }
+
+  /**
+   * Builds a grid over the given restaurants.
+   * @param restaurantEntities restaurants to index, their order is preserved by lookups
+   * @param cellSizeInDegrees edge of a grid cell, in degrees
+   * @return the index
+   */
+  public static RestaurantGridIndex build(List<RestaurantEntity> restaurantEntities,
+      double cellSizeInDegrees) {
+    if (!(cellSizeInDegrees > 0 && cellSizeInDegrees <= 180)) {
+      throw new IllegalArgumentException("Invalid grid cell size " + cellSizeInDegrees);
+    }
+    return new RestaurantGridIndex(cellSizeInDegrees, new ArrayList<>(restaurantEntities));
+  }
+
+  /**
+   * Returns the restaurants in the cells overlapping the bounding box of the given circle.
+   * The result is a superset of the restaurants within the radius; callers still have to apply
+   * the exact distance check.
+   * @return candidates in the order they were indexed
+   */
+  public List<RestaurantEntity> findCandidates(double latitude, double longitude,
+      double radiusInKms) {
+    double latitudeDelta = GeoUtils.latitudeDeltaInDegrees(radiusInKms);
+    double longitudeDelta = GeoUtils.longitudeDeltaInDegrees(latitude, radiusInKms);
+    boolean allColumns = 2 * longitudeDelta + cellSizeInDegrees >= 360;
+
+    int firstRow = rowOf(Math.max(-90, latitude - latitudeDelta));
+    int lastRow = rowOf(Math.min(90, latitude + latitudeDelta));
+    int firstColumn = allColumns ? 0 : columnOf(longitude - longitudeDelta);
+    int columnCount = allColumns ? columns
+        : Math.min(columns, Math.floorMod(columnOf(longitude + longitudeDelta) - firstColumn,
+            columns) + 1);
+
+    int[] ordinals = new int[16];
+    int found = 0;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int i = 0; i < columnCount; i++) {
+        int[] cell = cells.getOrDefault(cellKey(row, (firstColumn + i) % columns), EMPTY_CELL);
+        if (found + cell.length > ordinals.length) {
+          ordinals = Arrays.copyOf(ordinals, Math.max(ordinals.length * 2, found + cell.length));
+        }
+        System.arraycopy(cell, 0, ordinals, found, cell.length);
+        found += cell.length;
+      }
+    }
+    Arrays.sort(ordinals, 0, found);
+
+    List<RestaurantEntity> candidates = new ArrayList<>(found);
+    for (int i = 0; i < found; i++) {
+      candidates.add(restaurants.get(ordinals[i]));
+    }
+    return candidates;
+  }
+
+  public int size() {
+    return restaurants.size();
+  }
+
+  private int rowOf(double latitude) {
+    return (int) Math.floor((latitude + 90) / cellSizeInDegrees);
+  }
+
+  private int columnOf(double longitude) {
+    return Math.floorMod((int) Math.floor((longitude + 180) / cellSizeInDegrees), columns);
+  }
+
+  private long cellKey(int row, int column) {
+    return (long) row * columns + column;
+  }
+}
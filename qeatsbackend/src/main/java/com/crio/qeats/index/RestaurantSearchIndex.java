@@ -0,0 +1,564 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositoryservices.SearchSource;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.OpeningHours;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from search tokens and trigrams to restaurants, for each {@link SearchSource}.
+ * Restaurants get an ordinal the first time their restaurant id is seen, either on their own
+ * document or on their menu, and posting lists are {@link CompressedPostings} of ordinals.
+ * A query matches a restaurant when a single value of the source (its name, one of its
+ * attributes, the name or the attributes of one of its menu items) either contains all the
+ * tokens of the query, or contains the query as a substring. Substring candidates come from
+ * intersecting the posting lists of the trigrams of the query, and only they are verified.
+ * Cuisines and item attributes are also indexed as whole phrases in bitmaps over ordinals, so
+ * that attribute filters combine with bitwise operations before any restaurant is looked at.
+ * Documents can be added, replaced and removed one at a time while lookups are running.
+ */
+public final class RestaurantSearchIndex {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<String, Integer> ordinalsByRestaurantId = new HashMap<>();
+
+  private final List<Entry> entries = new ArrayList<>();
+
+  private int restaurantCount;
+
+  private final Map<SearchSource, Map<String, byte[]>> tokenPostings =
+      new EnumMap<>(SearchSource.class);
+
+  private final Map<SearchSource, Map<Long, byte[]>> trigramPostings =
+      new EnumMap<>(SearchSource.class);
+
+  // Bitmaps of ordinals per normalized cuisine and per normalized item attribute.
+  private final Map<SearchSource, Map<String, BitSet>> attributeBitmaps =
+      new EnumMap<>(SearchSource.class);
+
+  private final BitSet restaurantBitmap = new BitSet();
+
+  // Deletions only carry the Mongo id of the document.
+  private final Map<String, String> restaurantIdsByRestaurantDocumentId = new HashMap<>();
+
+  private final Map<String, String> restaurantIdsByMenuDocumentId = new HashMap<>();
+
+  // While built, posting lists are left out and encoded once all documents are in.
+  private boolean building;
+
+  private static final class Entry {
+    private RestaurantEntity restaurant;
+    private int[] openingHours;
+    private final Map<SearchSource, List<Value>> values = new EnumMap<>(SearchSource.class);
+  }
+
+  private static final class Value {
+    private final String phrase;
+    private final Set<String> tokens;
+
+    private Value(String text) {
+      this.phrase = SearchTokens.normalizePhrase(text);
+      this.tokens = new HashSet<>(SearchTokens.tokenize(text));
+    }
+  }
+
+  public RestaurantSearchIndex() {
+    for (SearchSource searchSource : SearchSource.values()) {
+      tokenPostings.put(searchSource, new HashMap<>());
+      trigramPostings.put(searchSource, new HashMap<>());
+    }
+    attributeBitmaps.put(SearchSource.ATTRIBUTES, new HashMap<>());
+    attributeBitmaps.put(SearchSource.ITEM_ATTRIBUTES, new HashMap<>());
+  }
+
+  /**
+   * Builds an index over the given documents.
+   * @param restaurantEntities restaurants, their order is preserved by lookups
+   */
+  public static RestaurantSearchIndex build(List<RestaurantEntity> restaurantEntities,
+      List<MenuEntity> menuEntities) {
+    RestaurantSearchIndex index = new RestaurantSearchIndex();
+    index.building = true;
+    restaurantEntities.forEach(index::putRestaurant);
+    menuEntities.forEach(index::putMenu);
+    index.encodePostings();
+    index.building = false;
+    return index;
+  }
+
+  /**
+   * Adds a restaurant, or replaces the one with the same restaurant id.
+   */
+  public void putRestaurant(RestaurantEntity restaurantEntity) {
+    if (restaurantEntity.getRestaurantId() == null) {
+      return;
+    }
+    Map<SearchSource, List<Value>> values = new EnumMap<>(SearchSource.class);
+    values.put(SearchSource.NAME, valuesOf(Collections.singletonList(
+        restaurantEntity.getName())));
+    values.put(SearchSource.ATTRIBUTES, valuesOf(restaurantEntity.getAttributes()));
+    int[] openingHours = OpeningHours.of(restaurantEntity.getOpensAt(),
+        restaurantEntity.getClosesAt());
+
+    lock.writeLock().lock();
+    try {
+      int ordinal = ordinalOf(restaurantEntity.getRestaurantId());
+      Entry entry = entries.get(ordinal);
+      if (entry.restaurant == null) {
+        restaurantCount++;
+      }
+      entry.restaurant = restaurantEntity;
+      entry.openingHours = openingHours;
+      restaurantBitmap.set(ordinal);
+      replaceValues(ordinal, entry, values);
+      if (restaurantEntity.getId() != null) {
+        restaurantIdsByRestaurantDocumentId.put(restaurantEntity.getId(),
+            restaurantEntity.getRestaurantId());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the items of a menu to its restaurant, replacing the items of its previous menu.
+   */
+  public void putMenu(MenuEntity menuEntity) {
+    if (menuEntity.getRestaurantId() == null) {
+      return;
+    }
+    List<String> itemNames = new ArrayList<>();
+    List<String> itemAttributes = new ArrayList<>();
+    if (menuEntity.getItems() != null) {
+      for (Item item : menuEntity.getItems()) {
+        itemNames.add(item.getName());
+        if (item.getAttributes() != null) {
+          itemAttributes.addAll(item.getAttributes());
+        }
+      }
+    }
+    Map<SearchSource, List<Value>> values = new EnumMap<>(SearchSource.class);
+    values.put(SearchSource.ITEM_NAME, valuesOf(itemNames));
+    values.put(SearchSource.ITEM_ATTRIBUTES, valuesOf(itemAttributes));
+
+    lock.writeLock().lock();
+    try {
+      int ordinal = ordinalOf(menuEntity.getRestaurantId());
+      replaceValues(ordinal, entries.get(ordinal), values);
+      if (menuEntity.getId() != null) {
+        restaurantIdsByMenuDocumentId.put(menuEntity.getId(), menuEntity.getRestaurantId());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the restaurant stored in the Mongo document with the given id, keeping its menu.
+   */
+  public void removeRestaurantDocument(String documentId) {
+    lock.writeLock().lock();
+    try {
+      String restaurantId = restaurantIdsByRestaurantDocumentId.remove(documentId);
+      Integer ordinal = restaurantId == null ? null : ordinalsByRestaurantId.get(restaurantId);
+      if (ordinal != null) {
+        Entry entry = entries.get(ordinal);
+        if (entry.restaurant != null) {
+          restaurantCount--;
+        }
+        entry.restaurant = null;
+        restaurantBitmap.clear(ordinal);
+        Map<SearchSource, List<Value>> values = new EnumMap<>(SearchSource.class);
+        values.put(SearchSource.NAME, Collections.emptyList());
+        values.put(SearchSource.ATTRIBUTES, Collections.emptyList());
+        replaceValues(ordinal, entry, values);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the items of the menu stored in the Mongo document with the given id.
+   */
+  public void removeMenuDocument(String documentId) {
+    lock.writeLock().lock();
+    try {
+      String restaurantId = restaurantIdsByMenuDocumentId.remove(documentId);
+      Integer ordinal = restaurantId == null ? null : ordinalsByRestaurantId.get(restaurantId);
+      if (ordinal != null) {
+        Map<SearchSource, List<Value>> values = new EnumMap<>(SearchSource.class);
+        values.put(SearchSource.ITEM_NAME, Collections.emptyList());
+        values.put(SearchSource.ITEM_ATTRIBUTES, Collections.emptyList());
+        replaceValues(ordinal, entries.get(ordinal), values);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the restaurants matching the query through the given source, either by all its
+   * tokens or as a substring.
+   * @return restaurants with a value equal to the query first, then the others, each in the
+   *     order they were first indexed; empty if the query is blank
+   */
+  public List<RestaurantEntity> find(SearchSource searchSource, String query) {
+    List<String> tokens = SearchTokens.tokenize(query);
+    String phrase = SearchTokens.normalizePhrase(query);
+    if (phrase.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    lock.readLock().lock();
+    try {
+      int[] candidates = tokens.isEmpty() ? new int[0]
+          : intersectAll(tokenPostings.get(searchSource), tokens);
+      if (phrase.length() >= SearchTokens.GRAM_LENGTH) {
+        candidates = union(candidates,
+            intersectAll(trigramPostings.get(searchSource), SearchTokens.trigrams(phrase)));
+      } else {
+        // Too short for a trigram: every restaurant is a candidate.
+        candidates = new int[entries.size()];
+        Arrays.setAll(candidates, ordinal -> ordinal);
+      }
+
+      List<RestaurantEntity> exactMatches = new ArrayList<>();
+      List<RestaurantEntity> restaurantEntities = new ArrayList<>();
+      for (int ordinal : candidates) {
+        Entry entry = entries.get(ordinal);
+        if (entry.restaurant == null || !anyValueMatches(entry, searchSource, tokens, phrase)) {
+          continue;
+        }
+        if (anyValueEquals(entry, searchSource, phrase)) {
+          exactMatches.add(entry.restaurant);
+        } else {
+          restaurantEntities.add(entry.restaurant);
+        }
+      }
+      exactMatches.addAll(restaurantEntities);
+      return exactMatches;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the restaurants matching the attribute filter which are open at the given time and
+   * within the serving radius, like the nearby lookup does.
+   * The attribute bitmaps are combined first. Only the restaurants left are then checked for
+   * their opening hours, a bounding box of the serving circle and, last, the exact distance.
+   * @return restaurants in the order they were first indexed
+   */
+  public List<RestaurantEntity> filter(AttributeFilter attributeFilter, double latitude,
+      double longitude, LocalTime currentTime, double servingRadiusInKms) {
+    lock.readLock().lock();
+    try {
+      BitSet matches = (BitSet) restaurantBitmap.clone();
+      for (Set<String> clause : attributeFilter.getClauses()) {
+        matches.and(anyAttributeBitmap(clause));
+      }
+
+      int time = OpeningHours.timeOf(currentTime);
+      double latitudeDelta = GeoUtils.latitudeDeltaInDegrees(servingRadiusInKms);
+      double longitudeDelta = GeoUtils.longitudeDeltaInDegrees(latitude, servingRadiusInKms);
+      List<RestaurantEntity> restaurantEntities = new ArrayList<>();
+      for (int ordinal = matches.nextSetBit(0); ordinal >= 0;
+          ordinal = matches.nextSetBit(ordinal + 1)) {
+        Entry entry = entries.get(ordinal);
+        RestaurantEntity restaurantEntity = entry.restaurant;
+        if (OpeningHours.isOpen(entry.openingHours, time)
+            && isInBoundingBox(restaurantEntity, latitude, longitude, latitudeDelta,
+                longitudeDelta)
+            && GeoUtils.findDistanceInKm(latitude, longitude, restaurantEntity.getLatitude(),
+                restaurantEntity.getLongitude()) < servingRadiusInKms) {
+          restaurantEntities.add(restaurantEntity);
+        }
+      }
+      return restaurantEntities;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of restaurants in the index.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return restaurantCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private int ordinalOf(String restaurantId) {
+    Integer ordinal = ordinalsByRestaurantId.get(restaurantId);
+    if (ordinal == null) {
+      ordinal = entries.size();
+      entries.add(new Entry());
+      ordinalsByRestaurantId.put(restaurantId, ordinal);
+    }
+    return ordinal;
+  }
+
+  private void replaceValues(int ordinal, Entry entry, Map<SearchSource, List<Value>> values) {
+    for (Map.Entry<SearchSource, List<Value>> sourceValues : values.entrySet()) {
+      SearchSource searchSource = sourceValues.getKey();
+      List<Value> oldValues = entry.values.getOrDefault(searchSource, Collections.emptyList());
+      List<Value> newValues = sourceValues.getValue();
+
+      Set<String> oldTokens = new HashSet<>();
+      Set<Long> oldTrigrams = new HashSet<>();
+      for (Value value : oldValues) {
+        oldTokens.addAll(value.tokens);
+        oldTrigrams.addAll(SearchTokens.trigrams(value.phrase));
+      }
+      Set<String> newTokens = new HashSet<>();
+      Set<Long> newTrigrams = new HashSet<>();
+      for (Value value : newValues) {
+        newTokens.addAll(value.tokens);
+        newTrigrams.addAll(SearchTokens.trigrams(value.phrase));
+      }
+
+      if (!building) {
+        updatePostings(tokenPostings.get(searchSource), oldTokens, newTokens, ordinal);
+        updatePostings(trigramPostings.get(searchSource), oldTrigrams, newTrigrams, ordinal);
+      }
+      Map<String, BitSet> bitmaps = attributeBitmaps.get(searchSource);
+      if (bitmaps != null) {
+        updateBitmaps(bitmaps, phrasesOf(oldValues), phrasesOf(newValues), ordinal);
+      }
+      entry.values.put(searchSource, newValues);
+    }
+  }
+
+  // Collects the ordinals of every token and trigram in increasing order, visiting the
+  // restaurants by ordinal, and encodes each list once.
+  private void encodePostings() {
+    for (SearchSource searchSource : SearchSource.values()) {
+      Map<String, OrdinalList> tokenOrdinals = new HashMap<>();
+      Map<Long, OrdinalList> trigramOrdinals = new HashMap<>();
+      for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+        Set<String> tokens = new HashSet<>();
+        Set<Long> trigrams = new HashSet<>();
+        for (Value value : entries.get(ordinal).values.getOrDefault(searchSource,
+            Collections.emptyList())) {
+          tokens.addAll(value.tokens);
+          trigrams.addAll(SearchTokens.trigrams(value.phrase));
+        }
+        for (String token : tokens) {
+          tokenOrdinals.computeIfAbsent(token, key -> new OrdinalList()).add(ordinal);
+        }
+        for (Long trigram : trigrams) {
+          trigramOrdinals.computeIfAbsent(trigram, key -> new OrdinalList()).add(ordinal);
+        }
+      }
+      tokenOrdinals.forEach((token, ordinals) ->
+          tokenPostings.get(searchSource).put(token, ordinals.encode()));
+      trigramOrdinals.forEach((trigram, ordinals) ->
+          trigramPostings.get(searchSource).put(trigram, ordinals.encode()));
+    }
+  }
+
+  private static final class OrdinalList {
+    private int[] ordinals = new int[4];
+    private int length;
+
+    private void add(int ordinal) {
+      if (length == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, length * 2);
+      }
+      ordinals[length++] = ordinal;
+    }
+
+    private byte[] encode() {
+      return CompressedPostings.encode(ordinals, length);
+    }
+  }
+
+  // Saves and deletions after the build change one ordinal of each list.
+  private static <K> void updatePostings(Map<K, byte[]> postings, Set<K> oldKeys,
+      Set<K> newKeys, int ordinal) {
+    for (K key : oldKeys) {
+      if (!newKeys.contains(key)) {
+        byte[] remaining = CompressedPostings.remove(postings.get(key), ordinal);
+        if (CompressedPostings.size(remaining) == 0) {
+          postings.remove(key);
+        } else {
+          postings.put(key, remaining);
+        }
+      }
+    }
+    for (K key : newKeys) {
+      if (!oldKeys.contains(key)) {
+        postings.put(key, CompressedPostings.insert(
+            postings.getOrDefault(key, CompressedPostings.EMPTY), ordinal));
+      }
+    }
+  }
+
+  private static void updateBitmaps(Map<String, BitSet> bitmaps, Set<String> oldPhrases,
+      Set<String> newPhrases, int ordinal) {
+    for (String phrase : oldPhrases) {
+      if (!newPhrases.contains(phrase)) {
+        BitSet bitmap = bitmaps.get(phrase);
+        bitmap.clear(ordinal);
+        if (bitmap.isEmpty()) {
+          bitmaps.remove(phrase);
+        }
+      }
+    }
+    for (String phrase : newPhrases) {
+      bitmaps.computeIfAbsent(phrase, key -> new BitSet()).set(ordinal);
+    }
+  }
+
+  // Restaurants having any of the attributes, as a cuisine or on one of their items.
+  private BitSet anyAttributeBitmap(Set<String> phrases) {
+    BitSet bitmap = new BitSet();
+    for (Map<String, BitSet> bitmaps : attributeBitmaps.values()) {
+      for (String phrase : phrases) {
+        BitSet attributeBitmap = bitmaps.get(phrase);
+        if (attributeBitmap != null) {
+          bitmap.or(attributeBitmap);
+        }
+      }
+    }
+    return bitmap;
+  }
+
+  private static boolean isInBoundingBox(RestaurantEntity restaurantEntity, double latitude,
+      double longitude, double latitudeDelta, double longitudeDelta) {
+    if (restaurantEntity.getLatitude() == null || restaurantEntity.getLongitude() == null) {
+      return false;
+    }
+    // Longitudes are compared across the antimeridian.
+    double longitudeDistance =
+        Math.abs(((restaurantEntity.getLongitude() - longitude) % 360 + 540) % 360 - 180);
+    return Math.abs(restaurantEntity.getLatitude() - latitude) <= latitudeDelta
+        && longitudeDistance <= longitudeDelta;
+  }
+
+  private static <K> int[] intersectAll(Map<K, byte[]> postings, Iterable<K> keys) {
+    List<byte[]> lists = new ArrayList<>();
+    for (K key : keys) {
+      byte[] list = postings.get(key);
+      if (list == null) {
+        return new int[0];
+      }
+      lists.add(list);
+    }
+    // Intersecting from the shortest list keeps every step as small as possible.
+    lists.sort((a, b) -> Integer.compare(CompressedPostings.size(a),
+        CompressedPostings.size(b)));
+    int[] candidates = CompressedPostings.decode(lists.get(0));
+    for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+      candidates = intersect(candidates, CompressedPostings.decode(lists.get(i)));
+    }
+    return candidates;
+  }
+
+  private static boolean anyValueMatches(Entry entry, SearchSource searchSource,
+      List<String> tokens, String phrase) {
+    for (Value value : entry.values.getOrDefault(searchSource, Collections.emptyList())) {
+      if ((!tokens.isEmpty() && value.tokens.containsAll(tokens))
+          || value.phrase.contains(phrase)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Set<String> phrasesOf(List<Value> values) {
+    Set<String> phrases = new HashSet<>();
+    for (Value value : values) {
+      phrases.add(value.phrase);
+    }
+    return phrases;
+  }
+
+  private static boolean anyValueEquals(Entry entry, SearchSource searchSource,
+      String phrase) {
+    for (Value value : entry.values.getOrDefault(searchSource, Collections.emptyList())) {
+      if (value.phrase.equals(phrase)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<Value> valuesOf(List<String> texts) {
+    List<Value> values = new ArrayList<>();
+    if (texts != null) {
+      for (String text : texts) {
+        Value value = new Value(text);
+        if (!value.phrase.isEmpty()) {
+          values.add(value);
+        }
+      }
+    }
+    return values;
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    int[] intersection = new int[Math.min(a.length, b.length)];
+    int found = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        intersection[found++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(intersection, found);
+  }
+
+  private static int[] union(int[] a, int[] b) {
+    int[] union = new int[a.length + b.length];
+    int found = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length || j < b.length) {
+      if (j == b.length || (i < a.length && a[i] < b[j])) {
+        union[found++] = a[i++];
+      } else if (i == a.length || b[j] < a[i]) {
+        union[found++] = b[j++];
+      } else {
+        union[found++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(union, found);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns names and queries into the tokens the search indexes are keyed by.
+ * Text is lower cased, accents are dropped ("Café" and "cafe" are the same token) and it is
+ * split on anything which is neither a letter nor a digit.
+ */
+public final class SearchTokens {
+
+  public static final int GRAM_LENGTH = 3;
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private SearchTokens() {
+  }
+
+  /**
+   * Lower cases the text and drops its accents, keeping everything else.
+   */
+  public static String normalize(String text) {
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+    return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Normalizes the text and collapses its whitespace, for substring matching.
+   */
+  public static String normalizePhrase(String text) {
+    if (text == null) {
+      return "";
+    }
+    return WHITESPACE.matcher(normalize(text)).replaceAll(" ").trim();
+  }
+
+  /**
+   * Returns the distinct trigrams of a normalized phrase, each packed into a long.
+   * @return empty if the phrase is shorter than {@link #GRAM_LENGTH}
+   */
+  public static Set<Long> trigrams(String phrase) {
+    Set<Long> trigrams = new LinkedHashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= phrase.length(); i++) {
+      trigrams.add(((long) phrase.charAt(i) << 32) | ((long) phrase.charAt(i + 1) << 16)
+          | phrase.charAt(i + 2));
+    }
+    return trigrams;
+  }
+
+  /**
+   * Returns the distinct tokens of the text, in order of first occurrence.
+   */
+  public static List<String> tokenize(String text) {
+    if (text == null) {
+      return new ArrayList<>();
+    }
+    Set<String> tokens = new LinkedHashSet<>();
+    for (String token : SEPARATORS.split(normalize(text))) {
+      if (!token.isEmpty()) {
+        tokens.add(token);
+      }
+    }
+    return new ArrayList<>(tokens);
+  }
+}
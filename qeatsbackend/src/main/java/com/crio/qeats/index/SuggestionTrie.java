@@ -0,0 +1,188 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import com.crio.qeats.dto.Suggestion;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix trie over suggestions, packed into arrays.
+ * Suggestions are numbered by decreasing weight, so the best completions of a prefix are the
+ * smallest suggestion ids under its node. Nodes are numbered breadth first, which stores the
+ * children of a node next to each other, sorted by character, and every node knows the best
+ * suggestion id of its subtree. A lookup walks down the prefix, then expands the subtree best
+ * first and stops after the requested number of completions, without visiting the rest of it.
+ * Keys are suggestion texts normalized with {@link SearchTokens#normalizePhrase}.
+ */
+public final class SuggestionTrie {
+
+  public static final SuggestionTrie EMPTY = build(new ArrayList<>());
+
+  private static final long TERMINAL = 1L << 31;
+
+  private final Suggestion[] suggestions;
+
+  private final char[] labels;
+
+  private final int[] firstChildren;
+
+  private final int[] childCounts;
+
+  private final int[] bestSuggestionIds;
+
+  // Suggestions ending at node n are terminalIds[terminalOffsets[n]..terminalOffsets[n + 1]).
+  private final int[] terminalOffsets;
+
+  private final int[] terminalIds;
+
+  private static final class BuilderNode {
+    private final TreeMap<Character, BuilderNode> children = new TreeMap<>();
+    private final List<Integer> suggestionIds = new ArrayList<>();
+    private int bestSuggestionId = Integer.MAX_VALUE;
+  }
+
+  private SuggestionTrie(Suggestion[] suggestions, BuilderNode root, int nodeCount,
+      int terminalCount) {
+    this.suggestions = suggestions;
+    labels = new char[nodeCount];
+    firstChildren = new int[nodeCount];
+    childCounts = new int[nodeCount];
+    bestSuggestionIds = new int[nodeCount];
+    terminalOffsets = new int[nodeCount + 1];
+    terminalIds = new int[terminalCount];
+
+    Queue<BuilderNode> pending = new ArrayDeque<>();
+    pending.add(root);
+    int nextNode = 1;
+    int nextTerminal = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      BuilderNode builderNode = pending.remove();
+      bestSuggestionIds[node] = builderNode.bestSuggestionId;
+      terminalOffsets[node] = nextTerminal;
+      for (int suggestionId : builderNode.suggestionIds) {
+        terminalIds[nextTerminal++] = suggestionId;
+      }
+      firstChildren[node] = nextNode;
+      childCounts[node] = builderNode.children.size();
+      for (Map.Entry<Character, BuilderNode> child : builderNode.children.entrySet()) {
+        labels[nextNode++] = child.getKey();
+        pending.add(child.getValue());
+      }
+    }
+    terminalOffsets[nodeCount] = nextTerminal;
+  }
+
+  /**
+   * Builds a trie over the given suggestions.
+   * Suggestions whose text is blank once normalized are left out.
+   */
+  public static SuggestionTrie build(Collection<Suggestion> suggestions) {
+    Suggestion[] sortedSuggestions = suggestions.toArray(new Suggestion[0]);
+    Arrays.sort(sortedSuggestions, Comparator.comparingLong(Suggestion::getWeight).reversed()
+        .thenComparing(Suggestion::getText));
+
+    BuilderNode root = new BuilderNode();
+    int nodeCount = 1;
+    int terminalCount = 0;
+    for (int suggestionId = 0; suggestionId < sortedSuggestions.length; suggestionId++) {
+      String key = SearchTokens.normalizePhrase(sortedSuggestions[suggestionId].getText());
+      if (key.isEmpty()) {
+        continue;
+      }
+      BuilderNode node = root;
+      // Ids grow, so the first id seen by a node is the best one of its subtree.
+      node.bestSuggestionId = Math.min(node.bestSuggestionId, suggestionId);
+      for (int i = 0; i < key.length(); i++) {
+        BuilderNode child = node.children.get(key.charAt(i));
+        if (child == null) {
+          child = new BuilderNode();
+          node.children.put(key.charAt(i), child);
+          nodeCount++;
+        }
+        node = child;
+        node.bestSuggestionId = Math.min(node.bestSuggestionId, suggestionId);
+      }
+      node.suggestionIds.add(suggestionId);
+      terminalCount++;
+    }
+    return new SuggestionTrie(sortedSuggestions, root, nodeCount, terminalCount);
+  }
+
+  /**
+   * Returns the heaviest suggestions starting with the prefix.
+   * @param prefix text typed so far, normalized like the suggestions
+   * @param maxSuggestions maximum number of suggestions to return
+   * @return suggestions by decreasing weight, empty if the prefix is blank
+   */
+  public List<Suggestion> complete(String prefix, int maxSuggestions) {
+    List<Suggestion> completions = new ArrayList<>();
+    String key = SearchTokens.normalizePhrase(prefix);
+    if (key.isEmpty() || maxSuggestions <= 0) {
+      return completions;
+    }
+    int node = 0;
+    for (int i = 0; i < key.length() && node >= 0; i++) {
+      node = findChild(node, key.charAt(i));
+    }
+    if (node < 0) {
+      return completions;
+    }
+
+    // Entries are (suggestion id << 32 | node) for subtrees, with TERMINAL set for suggestions.
+    PriorityQueue<Long> frontier = new PriorityQueue<>();
+    frontier.add(((long) bestSuggestionIds[node] << 32) | node);
+    while (!frontier.isEmpty() && completions.size() < maxSuggestions) {
+      long entry = frontier.poll();
+      int suggestionId = (int) (entry >>> 32);
+      if ((entry & TERMINAL) != 0) {
+        completions.add(suggestions[suggestionId]);
+        continue;
+      }
+      int expanded = (int) entry;
+      for (int i = terminalOffsets[expanded]; i < terminalOffsets[expanded + 1]; i++) {
+        frontier.add(((long) terminalIds[i] << 32) | TERMINAL);
+      }
+      for (int child = firstChildren[expanded];
+          child < firstChildren[expanded] + childCounts[expanded]; child++) {
+        frontier.add(((long) bestSuggestionIds[child] << 32) | child);
+      }
+    }
+    return completions;
+  }
+
+  /**
+   * Returns the number of suggestions in the trie.
+   */
+  public int size() {
+    return terminalIds.length;
+  }
+
+  private int findChild(int node, char label) {
+    int low = firstChildren[node];
+    int high = low + childCounts[node] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (labels[middle] < label) {
+        low = middle + 1;
+      } else if (labels[middle] > label) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+}
@@ -13,10 +13,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.ToString;
-import lombok.Data;
-import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 // Java class that maps to Mongo collection.
@@ -30,7 +29,9 @@ public class RestaurantEntity {
   @JsonIgnore
   private String id;
 
+  // Menus and searches look restaurants up by it.
   @NotNull
+  @Indexed
   private String restaurantId;
 
   @NotNull
@@ -57,5 +58,7 @@ public class RestaurantEntity {
   @NotNull
   private List<String> attributes = new ArrayList<>();
 
+  // GeoJSON copy of latitude/longitude so that Mongo can answer geo queries on a 2dsphere index.
+  @JsonIgnore
+  private GeoJsonPoint location;
 }
-
@@ -4,13 +4,19 @@ package com.crio.qeats.repositories;
 import com.crio.qeats.models.ItemEntity;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
 public interface ItemRepository extends MongoRepository<ItemEntity, String> {
 
-    @Query("{'itemName': {$regex: ?0, $options: 'i'}}")
-    List<ItemEntity> findItemsByItemName(String itemName);
+    // The pattern comes from SearchPatterns, search strings are never used as regexes.
+    @Query("{'name': ?0}")
+    List<ItemEntity> findItemsByItemName(Pattern itemNamePattern);
+
+    // Items with any attribute matching the pattern.
+    @Query("{'attributes': ?0}")
+    List<ItemEntity> findItemsByItemAttribute(Pattern itemAttributePattern);
      
 }
 
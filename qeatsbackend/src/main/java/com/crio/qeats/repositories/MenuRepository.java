@@ -18,4 +18,6 @@ public interface MenuRepository extends MongoRepository<MenuEntity, String> {
 
   Optional<List<MenuEntity>> findMenusByItemsItemIdIn(List<String> itemIdList);
 
+  Optional<List<MenuEntity>> findMenusByRestaurantIdIn(List<String> restaurantIdList);
+
 }
@@ -0,0 +1,32 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositories;
+
+import com.crio.qeats.models.RestaurantEntity;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link RestaurantEntity#getLocation()} in sync with latitude/longitude whenever a
+ * restaurant is saved through Spring Data.
+ */
+@Component
+public class RestaurantEntityLocationListener
+    extends AbstractMongoEventListener<RestaurantEntity> {
+
+  @Override
+  public void onBeforeConvert(BeforeConvertEvent<RestaurantEntity> event) {
+    RestaurantEntity restaurantEntity = event.getSource();
+    if (restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null) {
+      // GeoJSON points are (longitude, latitude).
+      restaurantEntity.setLocation(new GeoJsonPoint(restaurantEntity.getLongitude(),
+          restaurantEntity.getLatitude()));
+    }
+  }
+}
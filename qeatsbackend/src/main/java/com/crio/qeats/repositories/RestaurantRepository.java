@@ -7,8 +7,10 @@
 package com.crio.qeats.repositories;
 
 import com.crio.qeats.models.RestaurantEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional; 
+import java.util.regex.Pattern;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.querydsl.binding.QuerydslPredicate;
@@ -17,8 +19,15 @@ import org.springframework.stereotype.Repository;
 public interface RestaurantRepository extends MongoRepository<RestaurantEntity, String> {
 
     // void findRestaurantsByNameExact(Object any);
-    // @Query("{ 'name' : { $regex: ?0, $options: 'i' } }")
-    @Query("{'name':{$regex: '^?0$', $options: 'i'}}")
-     Optional<List<RestaurantEntity>> findRestaurantsByNameExact(String searchString);
+    // The pattern comes from SearchPatterns, search strings are never used as regexes.
+    @Query("{'name': ?0}")
+     Optional<List<RestaurantEntity>> findRestaurantsByNameExact(Pattern namePattern);
+
+    // Restaurants with any attribute matching the pattern.
+    @Query("{'attributes': ?0}")
+    List<RestaurantEntity> findRestaurantsByAttribute(Pattern attributePattern);
+
+    // Menus refer to restaurants by restaurantId, which is not the document _id.
+    List<RestaurantEntity> findRestaurantsByRestaurantIdIn(Collection<String> restaurantIds);
      
 }
@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Looks up restaurants by restaurant id, as menus refer to them, with one {@code $in} query per
+ * batch of ids instead of one query per id. Restaurant ids are not the {@code _id} of the
+ * restaurant documents.
+ * Within an HTTP request, resolved restaurants are remembered so the search sources of the
+ * request do not fetch the same restaurant twice, including the ones run concurrently by
+ * {@link com.crio.qeats.services.RestaurantSearchFanOut}. Outside of a request nothing is
+ * remembered.
+ */
+@Component
+@Log4j2
+public class RestaurantEntityResolver {
+
+  private static final String MEMO_ATTRIBUTE = RestaurantEntityResolver.class.getName() + ".memo";
+
+  @Value("${qeats.search.restaurant-id-batch-size:500}")
+  private int batchSize;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  /**
+   * Returns the restaurants with the given restaurant ids.
+   * Ids without a restaurant are skipped.
+   * @param ids restaurant ids, may contain duplicates
+   * @return restaurants in the order of the first occurrence of their id
+   */
+  public List<RestaurantEntity> resolve(Collection<String> ids) {
+    Set<String> uniqueIds = new LinkedHashSet<>(ids);
+    Map<String, RestaurantEntity> memo = currentMemo();
+    Map<String, RestaurantEntity> restaurantsById = new HashMap<>();
+
+    List<String> missingIds = new ArrayList<>();
+    for (String id : uniqueIds) {
+      RestaurantEntity remembered = memo == null ? null : memo.get(id);
+      if (remembered == null) {
+        missingIds.add(id);
+      } else {
+        restaurantsById.put(id, remembered);
+      }
+    }
+
+    for (int from = 0; from < missingIds.size(); from += batchSize) {
+      List<String> batch = missingIds.subList(from, Math.min(from + batchSize, missingIds.size()));
+      for (RestaurantEntity restaurantEntity
+          : restaurantRepository.findRestaurantsByRestaurantIdIn(batch)) {
+        restaurantsById.put(restaurantEntity.getRestaurantId(), restaurantEntity);
+      }
+    }
+    if (memo != null) {
+      memo.putAll(restaurantsById);
+    }
+
+    List<RestaurantEntity> restaurantEntities = new ArrayList<>(restaurantsById.size());
+    for (String id : uniqueIds) {
+      RestaurantEntity restaurantEntity = restaurantsById.get(id);
+      if (restaurantEntity == null) {
+        log.debug("No restaurant with id {}", id);
+      } else {
+        restaurantEntities.add(restaurantEntity);
+      }
+    }
+    return restaurantEntities;
+  }
+
+  /**
+   * Makes restaurants loaded some other way available to the later lookups of the request.
+   */
+  public void remember(Collection<RestaurantEntity> restaurantEntities) {
+    Map<String, RestaurantEntity> memo = currentMemo();
+    if (memo != null) {
+      for (RestaurantEntity restaurantEntity : restaurantEntities) {
+        memo.put(restaurantEntity.getRestaurantId(), restaurantEntity);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, RestaurantEntity> currentMemo() {
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    if (requestAttributes == null) {
+      return null;
+    }
+    // The search sources of a request share its attributes from several threads.
+    synchronized (requestAttributes) {
+      Object memo = requestAttributes.getAttribute(MEMO_ATTRIBUTE,
+          RequestAttributes.SCOPE_REQUEST);
+      if (memo == null) {
+        memo = new ConcurrentHashMap<String, RestaurantEntity>();
+        requestAttributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+      }
+      return (Map<String, RestaurantEntity>) memo;
+    }
+  }
+}
@@ -7,6 +7,8 @@
 package com.crio.qeats.repositoryservices;
 
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
+import com.crio.qeats.index.AttributeFilter;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.concurrent.Future;
@@ -28,6 +30,17 @@ public interface RestaurantRepositoryService {
   List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
       LocalTime currentTime, Double servingRadiusInKms);
 
+  /**
+   * Get the list of open restaurants within the specified serving radius, of which only some
+   * fields are needed. Restaurants looked up in Mongo only have these fields loaded, the others
+   * are left unset; restaurants served from the caches are returned whole.
+   * @param fields fields the restaurants are needed with
+   * @return list of open restaurants within the specified radius or
+   *     empty list if there is none
+   */
+  List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, RestaurantFields fields);
+
 
   /**
    * Get the list of open restaurants within the specified serving radius.
@@ -67,6 +80,15 @@ public interface RestaurantRepositoryService {
    */
   List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms);
+
+  /**
+   * Get the list of open restaurants within the specified serving radius whose cuisines and
+   * item attributes satisfy the attribute filter.
+   * @param attributeFilter attributes the restaurants must have, an empty filter keeps them all
+   * @return list of restaurants
+   */
+  List<Restaurant> findRestaurantsByAttributeFilter(Double latitude, Double longitude,
+      AttributeFilter attributeFilter, LocalTime currentTime, Double servingRadiusInKms);
   
       /**
  
@@ -2,6 +2,8 @@
 package com.crio.qeats.repositoryservices;
 
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
+import com.crio.qeats.index.AttributeFilter;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -53,6 +55,12 @@ public class RestaurantRepositoryServiceDummyImpl implements RestaurantRepositor
     return restaurantList;
   }
 
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, RestaurantFields fields) {
+    return findAllRestaurantsCloseBy(latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
 
   public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
@@ -76,6 +84,12 @@ public class RestaurantRepositoryServiceDummyImpl implements RestaurantRepositor
     return null;
   }
 
+  @Override
+  public List<Restaurant> findRestaurantsByAttributeFilter(Double latitude, Double longitude,
+      AttributeFilter attributeFilter, LocalTime currentTime, Double servingRadiusInKms) {
+    return null;
+  }
+
   @Override
   public Future<List<Restaurant>> findRestaurantsByNameAsync(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
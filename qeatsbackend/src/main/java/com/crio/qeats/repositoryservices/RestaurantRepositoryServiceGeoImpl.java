@@ -0,0 +1,166 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.GeoHashUtils;
+import com.crio.qeats.utils.GeoUtils;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Repository service which lets Mongo filter nearby restaurants with a single
+ * {@code $geoWithin} query on a 2dsphere index, instead of streaming the whole collection.
+ */
+@Service
+@Log4j2
+@ConditionalOnProperty(name = "qeats.repositoryservice.mode", havingValue = "geo")
+public class RestaurantRepositoryServiceGeoImpl extends RestaurantRepositoryServiceImpl {
+
+  private static final String LOCATION_FIELD = "location";
+
+  // Mongo's circle is padded a little; the exact distance check below trims it back.
+  private static final double RADIUS_PADDING = 1.0001;
+
+  private static final int BACKFILL_BATCH_SIZE = 1000;
+
+  /**
+   * Makes sure the 2dsphere index is present and every restaurant has a location.
+   */
+  @PostConstruct
+  public void ensureGeoIndex() {
+    backfillLocations();
+    mongoTemplate.indexOps(RestaurantEntity.class).ensureIndex(
+        new GeospatialIndex(LOCATION_FIELD).typed(GeoSpatialIndexType.GEO_2DSPHERE));
+  }
+
+  /**
+   * Adds the GeoJSON location to the restaurants stored without it: the ones stored before it
+   * existed, and the ones written to Mongo other than through this application, which are
+   * not found by geo queries until then.
+   */
+  @Scheduled(fixedDelayString = "${qeats.geo.backfill-interval-ms:60000}")
+  public void backfillLocations() {
+    Query missingLocation = new Query(Criteria.where(LOCATION_FIELD).exists(false));
+    missingLocation.fields().include("latitude").include("longitude");
+
+    List<RestaurantEntity> restaurantEntities =
+        mongoTemplate.find(missingLocation, RestaurantEntity.class);
+    BulkOperations bulkOperations = null;
+    int pending = 0;
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      if (restaurantEntity.getLatitude() == null || restaurantEntity.getLongitude() == null) {
+        continue;
+      }
+      if (bulkOperations == null) {
+        bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+            RestaurantEntity.class);
+      }
+      bulkOperations.updateOne(Query.query(Criteria.where("_id").is(restaurantEntity.getId())),
+          Update.update(LOCATION_FIELD, new GeoJsonPoint(restaurantEntity.getLongitude(),
+              restaurantEntity.getLatitude())));
+      if (++pending == BACKFILL_BATCH_SIZE) {
+        bulkOperations.execute();
+        bulkOperations = null;
+        pending = 0;
+      }
+    }
+    if (bulkOperations != null) {
+      bulkOperations.execute();
+    }
+    if (!restaurantEntities.isEmpty()) {
+      log.info("Backfilled location on {} restaurants", restaurantEntities.size());
+    }
+  }
+
+  @Override
+  public List<Restaurant> findAllRestaurantsMongo(Double latitude,
+      Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    List<Restaurant> restaurantList = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : mongoTemplate.find(
+        restaurantsCloseBy(latitude, longitude, servingRadiusInKms), RestaurantEntity.class)) {
+      if (isOpenNow(currentTime, restaurantEntity)
+          && GeoUtils.findDistanceInKm(latitude, longitude,
+              restaurantEntity.getLatitude(), restaurantEntity.getLongitude())
+              < servingRadiusInKms) {
+        restaurantList.add(EntityMapper.toRestaurant(restaurantEntity));
+      }
+    }
+
+    return restaurantList;
+  }
+
+  @Override
+  protected List<String> findOpenRestaurantIdsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    Query query = restaurantsCloseBy(latitude, longitude, servingRadiusInKms);
+    query.fields().include("latitude").include("longitude").include("opensAt")
+        .include("closesAt");
+
+    List<String> ids = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : mongoTemplate.find(query, RestaurantEntity.class)) {
+      if (isOpenNow(currentTime, restaurantEntity)
+          && GeoUtils.findDistanceInKm(latitude, longitude,
+              restaurantEntity.getLatitude(), restaurantEntity.getLongitude())
+              < servingRadiusInKms) {
+        ids.add(restaurantEntity.getId());
+      }
+    }
+
+    return ids;
+  }
+
+  @Override
+  protected List<RestaurantEntity> findRestaurantEntitiesInCells(Set<String> cells) {
+    // One circle around each cell; the caller drops the restaurants outside of the cells.
+    Criteria[] cellAreas = cells.stream()
+        .map(cell -> {
+          WGS84Point center = GeoHashUtils.centerOf(cell);
+          return Criteria.where(LOCATION_FIELD).withinSphere(sphereOf(center.getLatitude(),
+              center.getLongitude(), GeoHashUtils.circumradiusInKms(cell)));
+        })
+        .toArray(Criteria[]::new);
+
+    return mongoTemplate.find(new Query(new Criteria().orOperator(cellAreas)),
+        RestaurantEntity.class);
+  }
+
+  // Opening hours may run past midnight or have several slots, which string comparisons in
+  // Mongo cannot tell; they are checked here along with the exact distance.
+  private static Query restaurantsCloseBy(Double latitude, Double longitude,
+      Double servingRadiusInKms) {
+    return new Query(Criteria.where(LOCATION_FIELD)
+        .withinSphere(sphereOf(latitude, longitude, servingRadiusInKms)));
+  }
+
+  private static Circle sphereOf(double latitude, double longitude, double radiusInKms) {
+    double radiusInRadians = radiusInKms * RADIUS_PADDING / GeoUtils.EARTH_RADIUS_IN_KMS;
+    return new Circle(new Point(longitude, latitude),
+        new Distance(radiusInRadians, Metrics.NEUTRAL));
+  }
+}
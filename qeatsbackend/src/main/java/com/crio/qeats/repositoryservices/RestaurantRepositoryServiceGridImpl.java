@@ -0,0 +1,117 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
+import com.crio.qeats.index.RestaurantGridIndex;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.GeoHashUtils;
+import com.crio.qeats.utils.GeoUtils;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Repository service answering nearby lookups from an in-process {@link RestaurantGridIndex}
+ * instead of scanning the whole restaurants collection on every request.
+ * The index is built at startup and rebuilt periodically; lookups keep working on the previous
+ * snapshot while a refresh is in progress.
+ */
+@Service
+@Log4j2
+@ConditionalOnProperty(name = "qeats.repositoryservice.mode", havingValue = "grid")
+public class RestaurantRepositoryServiceGridImpl extends RestaurantRepositoryServiceImpl {
+
+  @Value("${qeats.grid.cell-size-degrees:0.05}")
+  private double cellSizeInDegrees;
+
+  private volatile RestaurantGridIndex gridIndex;
+
+  /**
+   * Loads all the restaurants and swaps in a freshly built grid.
+   */
+  @PostConstruct
+  @Scheduled(initialDelayString = "${qeats.grid.refresh-interval-ms:300000}",
+      fixedDelayString = "${qeats.grid.refresh-interval-ms:300000}")
+  public void refreshGridIndex() {
+    try {
+      List<RestaurantEntity> restaurantEntities = restaurantRepository.findAll();
+      gridIndex = RestaurantGridIndex.build(restaurantEntities, cellSizeInDegrees);
+      log.info("Restaurant grid index built with {} restaurants", gridIndex.size());
+    } catch (RuntimeException e) {
+      // Keep serving from the previous snapshot, the next refresh will retry.
+      log.error("Failed to refresh the restaurant grid index", e);
+    }
+  }
+
+  @Override
+  public List<Restaurant> findAllRestaurantsMongo(Double latitude,
+      Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    RestaurantGridIndex index = gridIndex;
+    if (index == null) {
+      return super.findAllRestaurantsMongo(latitude, longitude, currentTime, servingRadiusInKms);
+    }
+
+    List<Restaurant> restaurantList = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity
+        : index.findCandidates(latitude, longitude, servingRadiusInKms)) {
+      if (isOpenNow(currentTime, restaurantEntity)
+          && GeoUtils.findDistanceInKm(latitude, longitude,
+              restaurantEntity.getLatitude(), restaurantEntity.getLongitude())
+              < servingRadiusInKms) {
+        restaurantList.add(EntityMapper.toRestaurant(restaurantEntity));
+      }
+    }
+
+    return restaurantList;
+  }
+
+  @Override
+  protected List<Restaurant> findAllRestaurantsMongo(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, RestaurantFields fields) {
+    if (gridIndex == null) {
+      return super.findAllRestaurantsMongo(latitude, longitude, currentTime, servingRadiusInKms,
+          fields);
+    }
+    // The grid holds whole restaurants, narrowing them down to the fields would save nothing.
+    return findAllRestaurantsMongo(latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  protected List<RestaurantEntity> findRestaurantEntitiesInCells(Set<String> cells) {
+    RestaurantGridIndex index = gridIndex;
+    if (index == null) {
+      return super.findRestaurantEntitiesInCells(cells);
+    }
+
+    Set<RestaurantEntity> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<RestaurantEntity> restaurantEntities = new ArrayList<>();
+    for (String cell : cells) {
+      WGS84Point center = GeoHashUtils.centerOf(cell);
+      for (RestaurantEntity restaurantEntity : index.findCandidates(center.getLatitude(),
+          center.getLongitude(), GeoHashUtils.circumradiusInKms(cell))) {
+        if (seen.add(restaurantEntity)) {
+          restaurantEntities.add(restaurantEntity);
+        }
+      }
+    }
+
+    return restaurantEntities;
+  }
+}
@@ -6,77 +6,134 @@
 
 package com.crio.qeats.repositoryservices;
 
-import ch.hsr.geohash.GeoHash;
-import redis.clients.jedis.Jedis;
-import com.crio.qeats.configs.RedisConfiguration;
-import com.crio.qeats.dto.Restaurant;
-import com.crio.qeats.globals.GlobalConstants;
-import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.cache.CacheHealthTracker;
+import com.crio.qeats.cache.CachedRestaurants;
+import com.crio.qeats.cache.CachedRestaurantsCodecs;
+import com.crio.qeats.cache.RedisLock;
+import com.crio.qeats.cache.RestaurantLocalCache;
+import com.crio.qeats.cache.SingleFlight;
 import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Item;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
 import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.index.AttributeFilter;
+import com.crio.qeats.index.RestaurantSearchIndex;
+import com.crio.qeats.index.SearchTokens;
 import com.crio.qeats.models.ItemEntity;
 import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.ItemRepository;
 import com.crio.qeats.repositories.MenuRepository;
 import com.crio.qeats.repositories.RestaurantRepository;
-import com.crio.qeats.utils.GeoLocation;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.GeoHashUtils;
 import com.crio.qeats.utils.GeoUtils;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.crio.qeats.utils.OpeningHours;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import javax.inject.Provider;
-import org.modelmapper.ModelMapper;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Primary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
 
 
 @Service
+@Log4j2
+@ConditionalOnProperty(name = "qeats.repositoryservice.mode", havingValue = "scan",
+    matchIfMissing = true)
 public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryService {
 
 
   @Autowired
-  private RestaurantRepository restaurantRepository;
+  protected RestaurantRepository restaurantRepository;
 
   @Autowired
   private RedisConfiguration redisConfiguration;
 
   @Autowired
-  private MongoTemplate mongoTemplate;
+  private RestaurantLocalCache restaurantLocalCache;
+
+  @Autowired
+  private CacheHealthTracker cacheHealthTracker;
+
+  @Autowired
+  protected MongoTemplate mongoTemplate;
 
   @Autowired
   private  ItemRepository itemRepository;
 
+  @Autowired
+  private RestaurantEntityResolver restaurantEntityResolver;
+
+  @Autowired
+  private SearchPatterns searchPatterns;
+
+  // Only present with qeats.search.backend=index.
+  @Autowired(required = false)
+  private RestaurantSearchIndexMaintainer restaurantSearchIndexMaintainer;
+
   @Autowired
   private MenuRepository  menuRepository;
 
+  @Value("${qeats.cache.cell-lock-ttl-ms:5000}")
+  private long cellLockTtlInMillis;
+
+  @Value("${qeats.cache.cell-lock-poll-interval-ms:50}")
+  private long cellLockPollIntervalInMillis;
+
   @Autowired
-  private Provider<ModelMapper> modelMapperProvider;
+  private CachedRestaurantsCodecs cachedRestaurantsCodecs;
+
+  private final SingleFlight<String, List<Restaurant>> cellLoads = new SingleFlight<>();
+
+  @Value("${qeats.cache.soft-expiry-seconds:600}")
+  private long softExpiryInSeconds;
+
+  private final Set<String> refreshingCells = ConcurrentHashMap.newKeySet();
 
-  private boolean isOpenNow(LocalTime time, RestaurantEntity res) {
-    LocalTime openingTime = LocalTime.parse(res.getOpensAt());
-    LocalTime closingTime = LocalTime.parse(res.getClosesAt());
+  // Few threads and a bounded queue: refreshes must not compete with requests for Mongo.
+  private final ThreadPoolExecutor cellRefreshExecutor = new ThreadPoolExecutor(2, 2,
+      60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256),
+      new CustomizableThreadFactory("cell-refresh-"), new ThreadPoolExecutor.AbortPolicy());
 
-    return time.isAfter(openingTime) && time.isBefore(closingTime);
+  // Distinct opening hours are parsed once for the process, see OpeningHours#of.
+  protected boolean isOpenNow(LocalTime time, RestaurantEntity res) {
+    return OpeningHours.isOpen(OpeningHours.of(res.getOpensAt(), res.getClosesAt()), time);
+  }
+
+  private boolean isOpenNow(LocalTime time, Restaurant restaurant) {
+    return OpeningHours.isOpen(OpeningHours.of(restaurant.getOpensAt(),
+        restaurant.getClosesAt()), time);
   }
 
   // TODO: CRIO_TASK_MODULE_NOSQL
@@ -88,8 +145,6 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findAllRestaurantsMongo(Double latitude,
       Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
 
-        ModelMapper modelMapper = modelMapperProvider.get();
-        
         List<RestaurantEntity> restaurantEntityList = restaurantRepository.findAll();
     
         List<Restaurant> restaurantList = new ArrayList<>();
@@ -99,7 +154,7 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
             if (GeoUtils.findDistanceInKm(latitude, longitude,
                     restaurantEntity.getLatitude(), restaurantEntity.getLongitude())
                     < servingRadiusInKms) {
-              restaurantList.add(modelMapper.map(restaurantEntity, Restaurant.class));
+              restaurantList.add(EntityMapper.toRestaurant(restaurantEntity));
             }
           }
         }
@@ -107,64 +162,379 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
         return restaurantList;    
   }
 
-  
-  private List<Restaurant> findAllRestaurantsCache(Double latitude, Double longitude,
+  /**
+   * Nearby lookup in Mongo loading only the given fields.
+   * A first pass loads the fields open restaurants are found with, and a second one the
+   * requested fields of the restaurants found.
+   */
+  protected List<Restaurant> findAllRestaurantsMongo(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, RestaurantFields fields) {
+    if (fields.isAll()) {
+      return findAllRestaurantsMongo(latitude, longitude, currentTime, servingRadiusInKms);
+    }
+    List<String> ids =
+        findOpenRestaurantIdsCloseBy(latitude, longitude, currentTime, servingRadiusInKms);
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Query query = new Query(Criteria.where("_id").in(ids));
+    for (String field : fields.getDocumentFields()) {
+      query.fields().include(field);
+    }
+    Map<String, RestaurantEntity> restaurantEntitiesById = new HashMap<>();
+    for (RestaurantEntity restaurantEntity : mongoTemplate.find(query, RestaurantEntity.class)) {
+      restaurantEntitiesById.put(restaurantEntity.getId(), restaurantEntity);
+    }
+    List<Restaurant> restaurantList = new ArrayList<>();
+    for (String id : ids) {
+      RestaurantEntity restaurantEntity = restaurantEntitiesById.get(id);
+      if (restaurantEntity != null) {
+        restaurantList.add(EntityMapper.toRestaurant(restaurantEntity));
+      }
+    }
+    return restaurantList;
+  }
+
+  /**
+   * Finds the ids of the open restaurants within the serving radius, loading nothing but the
+   * location and opening hours of restaurants.
+   * @return ids of the restaurants in the order they are stored
+   */
+  protected List<String> findOpenRestaurantIdsCloseBy(Double latitude, Double longitude,
       LocalTime currentTime, Double servingRadiusInKms) {
-   
-        List<Restaurant> restaurantList = new ArrayList<>();
+    Query query = new Query();
+    query.fields().include("latitude").include("longitude").include("opensAt")
+        .include("closesAt");
+    List<String> ids = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : mongoTemplate.find(query, RestaurantEntity.class)) {
+      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime, latitude, longitude,
+          servingRadiusInKms)) {
+        ids.add(restaurantEntity.getId());
+      }
+    }
+    return ids;
+  }
 
-        GeoLocation geoLocation = new GeoLocation(latitude, longitude);
-        GeoHash geoHash = GeoHash.withCharacterPrecision(geoLocation.getLatitude(),
-                geoLocation.getLongitude(), 7);
   
-        Jedis jedis = null;
-        try {
-          jedis = redisConfiguration.getJedisPool().getResource();
-          String jsonStringFromCache = jedis.get(geoHash.toBase32());
-    
-          if (jsonStringFromCache == null) {
-            // Cache needs to be updated.
-            String createdJsonString = "";
-            try {
-              restaurantList = findAllRestaurantsMongo(geoLocation.getLatitude(),
-                  geoLocation.getLongitude(), currentTime, servingRadiusInKms);
-              createdJsonString = new ObjectMapper().writeValueAsString(restaurantList);
-            } catch (JsonProcessingException e) {
-              e.printStackTrace();
-            }
-    
-            // Do operations with jedis resource
-            jedis.setex(geoHash.toBase32(), GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS,
-                    createdJsonString);
-          } else {
-            try {
-              restaurantList = new ObjectMapper().readValue(jsonStringFromCache,
-                      new TypeReference<List<Restaurant>>(){});
-            } catch (IOException e) {
-              e.printStackTrace();
-            }
-          }
-        } finally {
-          if (jedis != null) {
-            jedis.close();
+  /**
+   * Nearby lookup served from the caches.
+   * Restaurants are cached per geohash cell of {@link GlobalConstants#REDIS_CELL_GEOHASH_PRECISION}
+   * regardless of their opening hours, so the cached lists depend neither on the user's exact
+   * position, nor on the time of day or the serving radius. Cells are looked up in the local
+   * cache first, the rest are fetched from Redis with one MGET, and the ones missing there too are
+   * loaded together and written back in one pipeline. The opening hours and exact distance checks
+   * run in memory. Without Redis, restaurants are looked up in Mongo with the given fields.
+   */
+  private List<Restaurant> findAllRestaurantsCache(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, RestaurantFields fields) {
+    List<String> cells = GeoHashUtils.findCoveringCells(latitude, longitude,
+        servingRadiusInKms, GlobalConstants.REDIS_CELL_GEOHASH_PRECISION);
+    Map<String, List<Restaurant>> restaurantsByCell =
+        new HashMap<>(restaurantLocalCache.getAllPresent(cells));
+
+    if (restaurantsByCell.size() < cells.size()) {
+      if (!cacheHealthTracker.isAvailable()) {
+        return findAllRestaurantsMongo(latitude, longitude, currentTime, servingRadiusInKms,
+            fields);
+      }
+      List<String> remoteCells = new ArrayList<>();
+      for (String cell : cells) {
+        if (!restaurantsByCell.containsKey(cell)) {
+          remoteCells.add(cell);
+        }
+      }
+      Map<String, List<Restaurant>> remoteRestaurantsByCell;
+      try {
+        remoteRestaurantsByCell = findCellsInRedis(remoteCells);
+      } catch (JedisException e) {
+        log.warn("Redis lookup failed, falling back to Mongo", e);
+        cacheHealthTracker.recordFailure(e);
+        return findAllRestaurantsMongo(latitude, longitude, currentTime, servingRadiusInKms,
+            fields);
+      }
+      remoteRestaurantsByCell.forEach(restaurantLocalCache::put);
+      restaurantsByCell.putAll(remoteRestaurantsByCell);
+    }
+
+    List<Restaurant> restaurantList = new ArrayList<>();
+    for (String cell : cells) {
+      for (Restaurant restaurant : restaurantsByCell.get(cell)) {
+        if (isOpenNow(currentTime, restaurant)
+            && GeoUtils.findDistanceInKm(latitude, longitude,
+                restaurant.getLatitude(), restaurant.getLongitude()) < servingRadiusInKms) {
+          // Cached instances are shared, callers get their own copy.
+          restaurantList.add(copyOf(restaurant));
+        }
+      }
+    }
+
+    return restaurantList;
+  }
+
+  private Map<String, List<Restaurant>> findCellsInRedis(List<String> cells) {
+    Map<String, List<Restaurant>> restaurantsByCell = new HashMap<>();
+    Set<String> missingCells = new HashSet<>();
+
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      long start = System.nanoTime();
+      List<byte[]> cachedCells = jedis.mget(keysOf(cells));
+      cacheHealthTracker.recordSuccess(System.nanoTime() - start);
+      long now = System.currentTimeMillis();
+      for (int i = 0; i < cells.size(); i++) {
+        CachedRestaurants cached = readCachedCell(cachedCells.get(i));
+        if (cached == null) {
+          missingCells.add(cells.get(i));
+        } else {
+          restaurantsByCell.put(cells.get(i), cached.getRestaurants());
+          if (cached.isStale(now)) {
+            scheduleCellRefresh(cells.get(i));
           }
         }
-    
-        return restaurantList;    
+      }
+    }
+
+    if (!missingCells.isEmpty()) {
+      // Concurrent requests missing the same cells wait for a single load.
+      restaurantsByCell.putAll(cellLoads.load(missingCells,
+          this::loadCellsOnce));
+    }
+
+    return restaurantsByCell;
+  }
+
+  /**
+   * Loads cells into Redis, coordinating with the other nodes through per cell locks.
+   * Cells locked by another node are read back from Redis once that node has written them.
+   * Redis connections are only borrowed for each command, never while loading from Mongo or
+   * waiting, so that waiting requests cannot drain the pool the lock owners need.
+   */
+  private Map<String, List<Restaurant>> loadCellsOnce(Set<String> cells) {
+    Map<String, List<Restaurant>> restaurantsByCell = new HashMap<>();
+    String token = UUID.randomUUID().toString();
+
+    Set<String> lockedCells = new HashSet<>();
+    Set<String> cellsLoadedElsewhere = new HashSet<>();
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      for (String cell : cells) {
+        if (RedisLock.tryLock(jedis, cell, token, cellLockTtlInMillis)) {
+          lockedCells.add(cell);
+        } else {
+          cellsLoadedElsewhere.add(cell);
+        }
+      }
+    }
+
+    try {
+      if (!lockedCells.isEmpty()) {
+        restaurantsByCell.putAll(loadAndStoreCells(lockedCells));
+      }
+    } finally {
+      unlockCells(lockedCells, token);
+    }
+
+    if (!cellsLoadedElsewhere.isEmpty()) {
+      restaurantsByCell.putAll(awaitCells(cellsLoadedElsewhere));
+    }
+
+    return restaurantsByCell;
+  }
+
+  /**
+   * Polls Redis for cells another node is loading. If they do not show up before the lock
+   * expires, the other node is assumed to have failed and the cells are loaded here.
+   */
+  private Map<String, List<Restaurant>> awaitCells(Set<String> cells) {
+    Map<String, List<Restaurant>> restaurantsByCell = new HashMap<>();
+    List<String> pendingCells = new ArrayList<>(cells);
+    long deadline = System.currentTimeMillis() + cellLockTtlInMillis;
+
+    while (!pendingCells.isEmpty() && System.currentTimeMillis() < deadline) {
+      try {
+        Thread.sleep(cellLockPollIntervalInMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      List<byte[]> cachedCells;
+      try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+        cachedCells = jedis.mget(keysOf(pendingCells));
+      }
+      List<String> stillPending = new ArrayList<>();
+      for (int i = 0; i < pendingCells.size(); i++) {
+        CachedRestaurants cached = readCachedCell(cachedCells.get(i));
+        if (cached == null) {
+          stillPending.add(pendingCells.get(i));
+        } else {
+          restaurantsByCell.put(pendingCells.get(i), cached.getRestaurants());
+        }
+      }
+      pendingCells = stillPending;
+    }
+
+    if (!pendingCells.isEmpty()) {
+      log.warn("Cells {} were not loaded by their lock owner, loading them here", pendingCells);
+      restaurantsByCell.putAll(loadAndStoreCells(new HashSet<>(pendingCells)));
+    }
+
+    return restaurantsByCell;
+  }
+
+  private Map<String, List<Restaurant>> loadAndStoreCells(Set<String> cells) {
+    Map<String, List<Restaurant>> loadedCells = loadCells(cells);
+    long softExpiryEpochMillis =
+        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(softExpiryInSeconds);
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      for (Map.Entry<String, List<Restaurant>> loadedCell : loadedCells.entrySet()) {
+        try {
+          pipeline.setex(SafeEncoder.encode(loadedCell.getKey()),
+              GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS, cachedRestaurantsCodecs.encode(
+                  new CachedRestaurants(softExpiryEpochMillis, loadedCell.getValue())));
+        } catch (IOException e) {
+          log.warn("Failed to encode cell {}, leaving it uncached", loadedCell.getKey(), e);
+        }
+      }
+      pipeline.sync();
+    }
+    return loadedCells;
+  }
+
+  private void unlockCells(Set<String> cells, String token) {
+    if (cells.isEmpty()) {
+      return;
+    }
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      for (String cell : cells) {
+        RedisLock.unlock(jedis, cell, token);
+      }
+    }
+  }
+
+  private static Restaurant copyOf(Restaurant restaurant) {
+    return new Restaurant(restaurant.getId(), restaurant.getRestaurantId(), restaurant.getName(),
+        restaurant.getCity(), restaurant.getImageUrl(), restaurant.getLatitude(),
+        restaurant.getLongitude(), restaurant.getOpensAt(), restaurant.getClosesAt(),
+        restaurant.getAttributes() == null ? null : new ArrayList<>(restaurant.getAttributes()));
+  }
+
+  private static byte[][] keysOf(List<String> cells) {
+    byte[][] keys = new byte[cells.size()][];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = SafeEncoder.encode(cells.get(i));
+    }
+    return keys;
+  }
+
+  private CachedRestaurants readCachedCell(byte[] bytesFromCache) {
+    if (bytesFromCache == null) {
+      return null;
+    }
+    try {
+      return cachedRestaurantsCodecs.decode(bytesFromCache);
+    } catch (IOException e) {
+      // Unreadable entries are treated like misses and get overwritten.
+      log.warn("Failed to decode a cached cell, treating it as a miss", e);
+      return null;
+    }
+  }
+
+  /**
+   * Reloads a cell whose entry is past its soft expiry, unless it is already being refreshed
+   * here or on another node. Requests keep being served the stale entry meanwhile.
+   */
+  private void scheduleCellRefresh(String cell) {
+    if (!refreshingCells.add(cell)) {
+      return;
+    }
+    try {
+      cellRefreshExecutor.execute(() -> refreshCell(cell));
+    } catch (RejectedExecutionException e) {
+      // The queue is full; a later request will retry while the entry is still stale.
+      refreshingCells.remove(cell);
+    }
+  }
+
+  private void refreshCell(String cell) {
+    String token = UUID.randomUUID().toString();
+    try {
+      boolean locked;
+      try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+        locked = RedisLock.tryLock(jedis, cell, token, cellLockTtlInMillis);
+      }
+      if (!locked) {
+        return;
+      }
+      try {
+        loadAndStoreCells(Collections.singleton(cell)).forEach(restaurantLocalCache::put);
+      } finally {
+        unlockCells(Collections.singleton(cell), token);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh cell {}", cell, e);
+      if (e instanceof JedisException) {
+        cacheHealthTracker.recordFailure(e);
+      }
+    } finally {
+      refreshingCells.remove(cell);
+    }
+  }
+
+  @PreDestroy
+  public void shutdownCellRefreshExecutor() {
+    cellRefreshExecutor.shutdownNow();
+  }
+
+
+  /**
+   * Loads the restaurants located in each of the given cells, whether open or not.
+   * @return restaurants per cell, with an entry (possibly empty) for every requested cell
+   */
+  private Map<String, List<Restaurant>> loadCells(Set<String> cells) {
+    Map<String, List<Restaurant>> restaurantsByCell = new HashMap<>();
+    for (String cell : cells) {
+      restaurantsByCell.put(cell, new ArrayList<>());
+    }
+
+    for (RestaurantEntity restaurantEntity : findRestaurantEntitiesInCells(cells)) {
+      List<Restaurant> cellRestaurants = restaurantsByCell.get(GeoHashUtils.cellOf(
+          restaurantEntity.getLatitude(), restaurantEntity.getLongitude(),
+          GlobalConstants.REDIS_CELL_GEOHASH_PRECISION));
+      if (cellRestaurants != null) {
+        cellRestaurants.add(EntityMapper.toRestaurant(restaurantEntity));
+      }
+    }
+
+    return restaurantsByCell;
+  }
+
+  /**
+   * Fetches the restaurants located in the given geohash cells.
+   * The result may contain restaurants outside of the cells; callers filter them out.
+   * @param cells base32 geohashes of precision {@link GlobalConstants#REDIS_CELL_GEOHASH_PRECISION}
+   * @return restaurants in the order they are stored
+   */
+  protected List<RestaurantEntity> findRestaurantEntitiesInCells(Set<String> cells) {
+    return restaurantRepository.findAll();
   }
   
   
   public List<Restaurant> findAllRestaurantsCloseBy(Double latitude,
       Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
               
-        if (redisConfiguration.isCacheAvailable()) {
-          return findAllRestaurantsCache(latitude, longitude, currentTime, servingRadiusInKms);
-        } else { 
-          return findAllRestaurantsMongo(latitude, longitude, currentTime, servingRadiusInKms);
-        }
+        // Falls back to findAllRestaurantsMongo when Redis is needed but unavailable.
+        return findAllRestaurantsCache(latitude, longitude, currentTime, servingRadiusInKms,
+            RestaurantFields.ALL);
     
     }
 
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms, RestaurantFields fields) {
+    // Cached cells hold whole restaurants, only Mongo lookups are narrowed to the fields.
+    return findAllRestaurantsCache(latitude, longitude, currentTime, servingRadiusInKms, fields);
+  }
+
 
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
@@ -173,18 +543,27 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   @Override
   public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        RestaurantSearchIndex searchIndex = currentSearchIndex();
+        if (searchIndex != null) {
+          return findRestaurantsInIndex(searchIndex, SearchSource.NAME, latitude, longitude,
+              searchString, currentTime, servingRadiusInKms);
+        }
+        Pattern namePattern = searchPatterns.exactly(searchString);
+        if (namePattern == null) {
+          return new ArrayList<>();
+        }
 
-        Optional<List<RestaurantEntity>> resturantEntities  = restaurantRepository.findRestaurantsByNameExact(searchString);
+        Optional<List<RestaurantEntity>> resturantEntities  = restaurantRepository.findRestaurantsByNameExact(namePattern);
         Set<String> set = new HashSet<>();
         List<Restaurant> restaurantList = new ArrayList<>();
-        ModelMapper mapper = modelMapperProvider.get();
 
         if(resturantEntities.isPresent()){
           List<RestaurantEntity> entities  = resturantEntities.get();
+          restaurantEntityResolver.remember(entities);
           for(RestaurantEntity entity : entities){
                if(isRestaurantCloseByAndOpen(entity, currentTime, latitude, longitude, servingRadiusInKms)
                 && !set.contains(entity.getId())){
-                  restaurantList.add(mapper.map(entity, Restaurant.class));
+                  restaurantList.add(EntityMapper.toRestaurant(entity));
                   set.add(entity.getId());
                 }
           }
@@ -200,25 +579,31 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findRestaurantsByAttributes(
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        RestaurantSearchIndex searchIndex = currentSearchIndex();
+        if (searchIndex != null) {
+          return findRestaurantsInIndex(searchIndex, SearchSource.ATTRIBUTES, latitude, longitude,
+              searchString, currentTime, servingRadiusInKms);
+        }
+        // Cuisines match fully or partly.
+        Pattern attributePattern = searchPatterns.containing(searchString);
+        if (attributePattern == null) {
+          return new ArrayList<>();
+        }
 
-        List<Restaurant> filteredRestaurants = new ArrayList<>(); 
-        Optional<List<RestaurantEntity>> optionalRestaurantEntities  = restaurantRepository.findRestaurantsByNameExact(searchString);
-        if (optionalRestaurantEntities.isPresent()) {
-          List<RestaurantEntity> restaurantEntities = optionalRestaurantEntities.get();
-          Set<String> set = new HashSet<>();
-         
-          // Step 2: Filter the list based on opening hours and proximity, and create a new list of Restaurant objects         
-          ModelMapper mapper = modelMapperProvider.get();
-          
-          for (RestaurantEntity entity : restaurantEntities) {
-              if (isRestaurantCloseByAndOpen(entity, currentTime, latitude, longitude, servingRadiusInKms) 
-              && !set.contains(entity.getId())) {
-                  filteredRestaurants.add(mapper.map(entity, Restaurant.class));
-                  set.add(entity.getId());
-              }
-          }          
-        // Step 3: Return the filtered list of restaurants         
-      }
+        List<RestaurantEntity> restaurantEntities =
+            restaurantRepository.findRestaurantsByAttribute(attributePattern);
+        restaurantEntityResolver.remember(restaurantEntities);
+
+        // Filter the list based on opening hours and proximity, and create a new list of
+        // Restaurant objects
+        List<Restaurant> filteredRestaurants = new ArrayList<>();
+        Set<String> set = new HashSet<>();
+        for (RestaurantEntity entity : restaurantEntities) {
+          if (isRestaurantCloseByAndOpen(entity, currentTime, latitude, longitude,
+              servingRadiusInKms) && set.add(entity.getId())) {
+            filteredRestaurants.add(EntityMapper.toRestaurant(entity));
+          }
+        }
      return filteredRestaurants;  
   }
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
@@ -231,35 +616,48 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findRestaurantsByItemName(
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        RestaurantSearchIndex searchIndex = currentSearchIndex();
+        if (searchIndex != null) {
+          return findRestaurantsInIndex(searchIndex, SearchSource.ITEM_NAME, latitude, longitude,
+              searchString, currentTime, servingRadiusInKms);
+        }
+        Pattern itemNamePattern = searchPatterns.containing(searchString);
+        if (itemNamePattern == null) {
+          return new ArrayList<>();
+        }
 
          // finding list of  item
-        List<ItemEntity> itemEntities  = itemRepository.findItemsByItemName(searchString);
+        List<ItemEntity> itemEntities  = itemRepository.findItemsByItemName(itemNamePattern);
+        // Menus list their items by itemId, not by the _id of the item documents.
         List<String> itemId = itemEntities.stream()
-        .map(ItemEntity::getId) 
+        .map(ItemEntity::getItemId)
         .collect(Collectors.toList());
         
         //  find menuEntity
         Optional<List<MenuEntity>> menuEntity = menuRepository.findMenusByItemsItemIdIn(itemId);
-        List<MenuEntity> menuEntities = menuEntity.get();
+        List<MenuEntity> menuEntities = new ArrayList<>(menuEntity.orElse(Collections.emptyList()));
+
+        // Restaurants serving an item named exactly like the query come first.
+        String searchPhrase = SearchTokens.normalizePhrase(searchString);
+        Set<String> exactItemIds = itemEntities.stream()
+            .filter(item -> SearchTokens.normalizePhrase(item.getName()).equals(searchPhrase))
+            .map(ItemEntity::getItemId)
+            .collect(Collectors.toSet());
+        menuEntities.sort(Comparator.comparing(menu -> !servesAnyItem(menu, exactItemIds)));
 
         // find  Resturant  Id
         List<String> resturanId =  menuEntities.stream().map(e->e.getRestaurantId()).collect(Collectors.toList());
 
-        List<RestaurantEntity> restaurantEntities = new ArrayList<>();
-
-          for(String id : resturanId){
-                restaurantEntities.add(restaurantRepository.findById(id).get());
-          }
+        List<RestaurantEntity> restaurantEntities = restaurantEntityResolver.resolve(resturanId);
 
         Set<String> set = new HashSet<>();
         List<Restaurant> restaurantList = new ArrayList<>();
-        ModelMapper mapper = modelMapperProvider.get();
 
         if(itemEntities.size() != 0){         
          for(RestaurantEntity entity: restaurantEntities){
           if( isRestaurantCloseByAndOpen(entity, currentTime, latitude, longitude, servingRadiusInKms) 
             && !set.contains(entity.getId())){
-            restaurantList.add(mapper.map(entity, Restaurant.class));
+            restaurantList.add(EntityMapper.toRestaurant(entity));
             set.add(entity.getId());
           }
          }
@@ -273,38 +671,40 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   @Override
   public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        RestaurantSearchIndex searchIndex = currentSearchIndex();
+        if (searchIndex != null) {
+          return findRestaurantsInIndex(searchIndex, SearchSource.ITEM_ATTRIBUTES, latitude, longitude,
+              searchString, currentTime, servingRadiusInKms);
+        }
+        Pattern itemAttributePattern = searchPatterns.containing(searchString);
+        if (itemAttributePattern == null) {
+          return new ArrayList<>();
+        }
    
-        ModelMapper modelMapper = modelMapperProvider.get();
-          // Step 1: Find the items matching the search query
-  List<ItemEntity> matchingItems = itemRepository.findItemsByItemName(searchString);
+          // Step 1: Find the items with an attribute matching the search query
+  List<ItemEntity> matchingItems = itemRepository.findItemsByItemAttribute(itemAttributePattern);
 
   // Step 2: Collect the item IDs from the matching items
   Set<String> itemIds = matchingItems.stream()
-      .map(ItemEntity::getId)
+      .map(ItemEntity::getItemId)
       .collect(Collectors.toSet());
 
   // Step 3: Find the menus containing the matching items
   Optional<List<MenuEntity>> matchingMenus = menuRepository.findMenusByItemsItemIdIn(new ArrayList<>(itemIds));
-    List<MenuEntity> matchingMenusList  = matchingMenus.get();
+    List<MenuEntity> matchingMenusList  = matchingMenus.orElse(Collections.emptyList());
   // Step 4: Collect the restaurant IDs from the matching menus
   Set<String> restaurantIds = matchingMenusList.stream()
       .map(MenuEntity::getRestaurantId)
       .collect(Collectors.toSet());
 
   // Step 5: Fetch the restaurants within the serving radius
-  List<RestaurantEntity> restaurants =  new ArrayList<>();
-  // List<String> resturantId = new ArrayList<>(restaurantIds);
-    for(String id : restaurantIds){
-         restaurants.add(restaurantRepository.findById(id).get());
-        //  restaurants.add(restaurantRepository.findById(id).orElseThrow(NullPointerException::new));
-
-    }
+  List<RestaurantEntity> restaurants = restaurantEntityResolver.resolve(restaurantIds);
  
   // Step 6: Filter the restaurants based on the matching restaurant IDs
   List<Restaurant> matchingRestaurants = new ArrayList<>();
      matchingRestaurants   = restaurants.stream()
-      .filter(restaurant -> isRestaurantCloseByAndOpen(restaurant, currentTime, latitude, longitude, servingRadiusInKms)  && restaurantIds.contains(restaurant.getId()))
-      .map(restaurant -> modelMapper.map(restaurant , Restaurant.class))
+      .filter(restaurant -> isRestaurantCloseByAndOpen(restaurant, currentTime, latitude, longitude, servingRadiusInKms)  && restaurantIds.contains(restaurant.getRestaurantId()))
+      .map(EntityMapper::toRestaurant)
       .collect(Collectors.toList());
 
   return matchingRestaurants;
@@ -315,6 +715,92 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
 
 
 
+  /**
+   * Attribute filtered nearby lookup.
+   * The search index answers it from its attribute bitmaps. Without it, the nearby restaurants
+   * are fetched as usual and their menus with a single query, and the filter is evaluated in
+   * memory.
+   */
+  @Override
+  public List<Restaurant> findRestaurantsByAttributeFilter(Double latitude, Double longitude,
+      AttributeFilter attributeFilter, LocalTime currentTime, Double servingRadiusInKms) {
+    RestaurantSearchIndex searchIndex = currentSearchIndex();
+    if (searchIndex != null) {
+      return searchIndex.filter(attributeFilter, latitude, longitude, currentTime,
+          servingRadiusInKms).stream()
+          .map(EntityMapper::toRestaurant)
+          .collect(Collectors.toList());
+    }
+
+    List<Restaurant> restaurants =
+        findAllRestaurantsCloseBy(latitude, longitude, currentTime, servingRadiusInKms);
+    if (attributeFilter.isEmpty() || restaurants.isEmpty()) {
+      return restaurants;
+    }
+
+    Map<String, Set<String>> attributesByRestaurantId = new HashMap<>();
+    for (Restaurant restaurant : restaurants) {
+      attributesByRestaurantId.put(restaurant.getRestaurantId(),
+          normalizedPhrases(restaurant.getAttributes()));
+    }
+    List<MenuEntity> menuEntities = menuRepository.findMenusByRestaurantIdIn(
+        new ArrayList<>(attributesByRestaurantId.keySet())).orElse(Collections.emptyList());
+    for (MenuEntity menuEntity : menuEntities) {
+      Set<String> attributes = attributesByRestaurantId.get(menuEntity.getRestaurantId());
+      if (attributes != null && menuEntity.getItems() != null) {
+        for (Item item : menuEntity.getItems()) {
+          attributes.addAll(normalizedPhrases(item.getAttributes()));
+        }
+      }
+    }
+
+    return restaurants.stream()
+        .filter(restaurant -> attributeFilter.matches(
+            attributesByRestaurantId.get(restaurant.getRestaurantId())))
+        .collect(Collectors.toList());
+  }
+
+  private static boolean servesAnyItem(MenuEntity menuEntity, Set<String> itemIds) {
+    if (itemIds.isEmpty() || menuEntity.getItems() == null) {
+      return false;
+    }
+    for (Item item : menuEntity.getItems()) {
+      if (itemIds.contains(item.getItemId())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Set<String> normalizedPhrases(List<String> texts) {
+    Set<String> phrases = new HashSet<>();
+    if (texts != null) {
+      for (String text : texts) {
+        phrases.add(SearchTokens.normalizePhrase(text));
+      }
+    }
+    return phrases;
+  }
+
+  private RestaurantSearchIndex currentSearchIndex() {
+    return restaurantSearchIndexMaintainer == null ? null
+        : restaurantSearchIndexMaintainer.getSearchIndex();
+  }
+
+  private List<Restaurant> findRestaurantsInIndex(RestaurantSearchIndex searchIndex,
+      SearchSource searchSource, Double latitude, Double longitude, String searchString,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    List<Restaurant> restaurantList = new ArrayList<>();
+    // Exact matches, e.g. restaurants named like the query, are listed first by the index.
+    for (RestaurantEntity restaurantEntity : searchIndex.find(searchSource, searchString)) {
+      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime, latitude, longitude,
+          servingRadiusInKms)) {
+        restaurantList.add(EntityMapper.toRestaurant(restaurantEntity));
+      }
+    }
+    return restaurantList;
+  }
+
   /**
    * Utility method to check if a restaurant is within the serving radius at a given time.
    * @return boolean True if restaurant falls within serving radius and is open, false otherwise
@@ -0,0 +1,182 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.OpeningHours;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Search backend answering the four search sources with a single aggregation on the
+ * restaurants collection, instead of one query chain per source.
+ * Mongo drops the restaurants outside of the bounding box of the serving circle, looks up
+ * whether each remaining one serves an item matching the search string, and streams back the
+ * matching restaurants one by one: only the fields of a restaurant and a tag per item source.
+ * Menus are never returned, and the result is never a single document bound by the size limit.
+ * Like the query chains, the item name source lists the restaurants serving an item named
+ * exactly like the search string first. The exact distance and opening hours checks are done
+ * here, like for nearby lookups: hours running past midnight or split in slots cannot be
+ * compared in Mongo.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "qeats.search.backend", havingValue = "aggregation")
+public class RestaurantSearchAggregation {
+
+  // Each tag is empty, or holds the _id of one menu with a matching item.
+  private static final String ITEM_NAME_TAG = "itemNameMenus";
+
+  private static final String EXACT_ITEM_NAME_TAG = "exactItemNameMenus";
+
+  private static final String ITEM_ATTRIBUTES_TAG = "itemAttributesMenus";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private SearchPatterns searchPatterns;
+
+  /**
+   * Finds the open restaurants within the serving radius which match the search string, by
+   * each {@link SearchSource}.
+   * A restaurant matching several sources is listed under each of them, as the same instance.
+   * @param searchString matched case and accent insensitively, fully or partly
+   * @return matching restaurants of every source, in the order they are stored, exact item
+   *     name matches first
+   */
+  public Map<SearchSource, List<Restaurant>> findRestaurantsBySearchQuery(Double latitude,
+      Double longitude, String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    Pattern pattern = searchPatterns.containing(searchString);
+    if (pattern == null) {
+      return new EnumMap<>(SearchSource.class);
+    }
+    Criteria nameCriteria = Criteria.where("name").regex(pattern);
+    Criteria attributesCriteria = Criteria.where("attributes").regex(pattern);
+
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(nearby(latitude, longitude, servingRadiusInKms)),
+        // Menus embed the name and attributes of their items, so the items collection is not
+        // needed.
+        lookupMenus(Criteria.where("items.name").regex(pattern), ITEM_NAME_TAG),
+        lookupMenus(Criteria.where("items.attributes").regex(pattern), ITEM_ATTRIBUTES_TAG),
+        Aggregation.match(new Criteria().orOperator(nameCriteria, attributesCriteria,
+            Criteria.where(ITEM_NAME_TAG + ".0").exists(true),
+            Criteria.where(ITEM_ATTRIBUTES_TAG + ".0").exists(true))),
+        // Only restaurants serving a partially matching item can serve an exactly matching one.
+        lookupMenus(Criteria.where("items.name").regex(searchPatterns.exactly(searchString)),
+            EXACT_ITEM_NAME_TAG),
+        Aggregation.project("restaurantId", "name", "city", "imageUrl", "latitude",
+            "longitude", "opensAt", "closesAt", "attributes", ITEM_NAME_TAG,
+            EXACT_ITEM_NAME_TAG, ITEM_ATTRIBUTES_TAG).andExclude("_id"));
+
+    List<Document> documents = mongoTemplate.aggregate(aggregation,
+        mongoTemplate.getCollectionName(RestaurantEntity.class), Document.class)
+        .getMappedResults();
+
+    // Mongo only tags item matches, names and attributes are matched again here, the way Mongo
+    // matches them: case insensitively, accented letters included.
+    Pattern localPattern = Pattern.compile(pattern.pattern(),
+        pattern.flags() | Pattern.UNICODE_CASE);
+    int time = OpeningHours.timeOf(currentTime);
+    Map<SearchSource, List<Restaurant>> restaurantsBySource = new EnumMap<>(SearchSource.class);
+    for (SearchSource searchSource : SearchSource.values()) {
+      restaurantsBySource.put(searchSource, new ArrayList<>());
+    }
+    List<Restaurant> exactItemNameRestaurants = new ArrayList<>();
+    for (Document document : documents) {
+      RestaurantEntity restaurantEntity =
+          mongoTemplate.getConverter().read(RestaurantEntity.class, document);
+      if (!OpeningHours.isOpen(OpeningHours.of(restaurantEntity.getOpensAt(),
+              restaurantEntity.getClosesAt()), time)
+          || GeoUtils.findDistanceInKm(latitude, longitude,
+              restaurantEntity.getLatitude(), restaurantEntity.getLongitude())
+              >= servingRadiusInKms) {
+        continue;
+      }
+      Restaurant restaurant = EntityMapper.toRestaurant(restaurantEntity);
+      if (restaurantEntity.getName() != null
+          && localPattern.matcher(restaurantEntity.getName()).find()) {
+        restaurantsBySource.get(SearchSource.NAME).add(restaurant);
+      }
+      if (restaurantEntity.getAttributes() != null && restaurantEntity.getAttributes().stream()
+          .anyMatch(attribute -> localPattern.matcher(attribute).find())) {
+        restaurantsBySource.get(SearchSource.ATTRIBUTES).add(restaurant);
+      }
+      if (isTagged(document, EXACT_ITEM_NAME_TAG)) {
+        exactItemNameRestaurants.add(restaurant);
+      } else if (isTagged(document, ITEM_NAME_TAG)) {
+        restaurantsBySource.get(SearchSource.ITEM_NAME).add(restaurant);
+      }
+      if (isTagged(document, ITEM_ATTRIBUTES_TAG)) {
+        restaurantsBySource.get(SearchSource.ITEM_ATTRIBUTES).add(restaurant);
+      }
+    }
+    restaurantsBySource.get(SearchSource.ITEM_NAME).addAll(0, exactItemNameRestaurants);
+    return restaurantsBySource;
+  }
+
+  // Tags restaurants with the _id of one of their menus matching the criteria. The lookup
+  // builder cannot join with a pipeline, so the stage is written out.
+  private AggregationOperation lookupMenus(Criteria menuCriteria, String tag) {
+    Document match = new Document(menuCriteria.getCriteriaObject())
+        .append("$expr", new Document("$eq", Arrays.asList("$restaurantId", "$$restaurantId")));
+    Document lookup = new Document("from", mongoTemplate.getCollectionName(MenuEntity.class))
+        .append("let", new Document("restaurantId", "$restaurantId"))
+        .append("pipeline", Arrays.asList(new Document("$match", match),
+            new Document("$limit", 1), new Document("$project", new Document("_id", 1))))
+        .append("as", tag);
+    return context -> new Document("$lookup", lookup);
+  }
+
+  private static boolean isTagged(Document document, String tag) {
+    List<?> menus = document.get(tag, List.class);
+    return menus != null && !menus.isEmpty();
+  }
+
+  private static Criteria nearby(double latitude, double longitude,
+      double servingRadiusInKms) {
+    double latitudeDelta = GeoUtils.latitudeDeltaInDegrees(servingRadiusInKms);
+    double longitudeDelta = GeoUtils.longitudeDeltaInDegrees(latitude, servingRadiusInKms);
+
+    Criteria criteria = Criteria.where("latitude")
+        .gte(latitude - latitudeDelta).lte(latitude + latitudeDelta);
+    if (longitudeDelta >= 180) {
+      return criteria;
+    }
+
+    double west = longitude - longitudeDelta;
+    double east = longitude + longitudeDelta;
+    if (west < -180) {
+      return criteria.orOperator(Criteria.where("longitude").gte(west + 360),
+          Criteria.where("longitude").lte(east));
+    }
+    if (east > 180) {
+      return criteria.orOperator(Criteria.where("longitude").gte(west),
+          Criteria.where("longitude").lte(east - 360));
+    }
+    return criteria.and("longitude").gte(west).lte(east);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.index.RestaurantSearchIndex;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link RestaurantSearchIndex} searches are answered from up to date.
+ * The index is built at startup and rebuilt periodically. In between, restaurants and menus
+ * saved or deleted by id through this application are applied to it as they happen; other
+ * changes show up at the next rebuild. Changes made while a rebuild loads its snapshot are
+ * also recorded and replayed onto the new index before it is swapped in.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "qeats.search.backend", havingValue = "index")
+public class RestaurantSearchIndexMaintainer extends AbstractMongoEventListener<Object> {
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  private volatile RestaurantSearchIndex searchIndex;
+
+  private final Object updateLock = new Object();
+
+  // Updates made since the running rebuild started loading, null when none is running.
+  private List<Consumer<RestaurantSearchIndex>> pendingUpdates;
+
+  /**
+   * Loads all the restaurants and menus and swaps in a freshly built index.
+   */
+  @PostConstruct
+  @Scheduled(initialDelayString = "${qeats.search.index.refresh-interval-ms:300000}",
+      fixedDelayString = "${qeats.search.index.refresh-interval-ms:300000}")
+  public synchronized void refreshSearchIndex() {
+    synchronized (updateLock) {
+      pendingUpdates = new ArrayList<>();
+    }
+    try {
+      RestaurantSearchIndex index = RestaurantSearchIndex.build(restaurantRepository.findAll(),
+          menuRepository.findAll());
+      synchronized (updateLock) {
+        // Replaying updates already in the snapshot is harmless, puts and removes are by id.
+        for (Consumer<RestaurantSearchIndex> update : pendingUpdates) {
+          update.accept(index);
+        }
+        searchIndex = index;
+      }
+      log.info("Restaurant search index built with {} restaurants", index.size());
+    } catch (RuntimeException e) {
+      // Keep serving from the previous index, the next refresh will retry.
+      log.error("Failed to refresh the restaurant search index", e);
+    } finally {
+      synchronized (updateLock) {
+        pendingUpdates = null;
+      }
+    }
+  }
+
+  /**
+   * Returns the current index, or null if none could be built yet.
+   */
+  public RestaurantSearchIndex getSearchIndex() {
+    return searchIndex;
+  }
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<Object> event) {
+    if (event.getSource() instanceof RestaurantEntity) {
+      RestaurantEntity restaurantEntity = (RestaurantEntity) event.getSource();
+      apply(index -> index.putRestaurant(restaurantEntity));
+    } else if (event.getSource() instanceof MenuEntity) {
+      MenuEntity menuEntity = (MenuEntity) event.getSource();
+      apply(index -> index.putMenu(menuEntity));
+    }
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<Object> event) {
+    Document query = event.getDocument();
+    if (query == null || query.get("_id") == null) {
+      // Deletions by anything but the id are picked up by the next rebuild.
+      return;
+    }
+    String documentId = query.get("_id").toString();
+    if (mongoTemplate.getCollectionName(RestaurantEntity.class)
+        .equals(event.getCollectionName())) {
+      apply(index -> index.removeRestaurantDocument(documentId));
+    } else if (mongoTemplate.getCollectionName(MenuEntity.class)
+        .equals(event.getCollectionName())) {
+      apply(index -> index.removeMenuDocument(documentId));
+    }
+  }
+
+  private void apply(Consumer<RestaurantSearchIndex> update) {
+    synchronized (updateLock) {
+      if (pendingUpdates != null) {
+        pendingUpdates.add(update);
+      }
+      RestaurantSearchIndex index = searchIndex;
+      if (index != null) {
+        update.accept(index);
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.index.QueryCorrector;
+import com.crio.qeats.index.SearchTokens;
+import com.crio.qeats.index.SuggestionTrie;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the {@link SuggestionTrie} typeahead requests are answered from, and the
+ * {@link QueryCorrector} misspelled searches are retried with.
+ * Suggestions are the restaurant names, cuisines and item names, weighted by the number of
+ * restaurants or menus they appear on; the corrector knows the words of those and of the item
+ * attributes. Both are rebuilt on the scheduler thread, right after startup and then
+ * periodically, and swapped in once complete; requests never wait for them.
+ */
+@Component
+@Log4j2
+public class RestaurantSuggestionsMaintainer {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  private volatile SuggestionTrie suggestionTrie = SuggestionTrie.EMPTY;
+
+  private volatile QueryCorrector queryCorrector = QueryCorrector.EMPTY;
+
+  /**
+   * Streams the names and attributes of all the restaurants and menus into a new trie and a
+   * new corrector.
+   */
+  @Scheduled(fixedDelayString = "${qeats.suggest.refresh-interval-ms:300000}")
+  public synchronized void refreshSuggestions() {
+    try {
+      Map<SearchSource, Map<String, Suggestion>> suggestions = new EnumMap<>(SearchSource.class);
+      Map<String, Long> wordFrequencies = new HashMap<>();
+
+      Query restaurantFields = new Query();
+      restaurantFields.fields().include("name").include("attributes");
+      try (CloseableIterator<RestaurantEntity> restaurantEntities =
+          mongoTemplate.stream(restaurantFields, RestaurantEntity.class)) {
+        while (restaurantEntities.hasNext()) {
+          RestaurantEntity restaurantEntity = restaurantEntities.next();
+          count(suggestions, SearchSource.NAME,
+              Collections.singletonList(restaurantEntity.getName()));
+          count(suggestions, SearchSource.ATTRIBUTES, restaurantEntity.getAttributes());
+          List<String> texts = new ArrayList<>();
+          texts.add(restaurantEntity.getName());
+          if (restaurantEntity.getAttributes() != null) {
+            texts.addAll(restaurantEntity.getAttributes());
+          }
+          countWords(wordFrequencies, texts);
+        }
+      }
+
+      Query menuFields = new Query();
+      menuFields.fields().include("items.name").include("items.attributes");
+      try (CloseableIterator<MenuEntity> menuEntities =
+          mongoTemplate.stream(menuFields, MenuEntity.class)) {
+        while (menuEntities.hasNext()) {
+          List<Item> items = menuEntities.next().getItems();
+          if (items != null) {
+            count(suggestions, SearchSource.ITEM_NAME,
+                items.stream().map(Item::getName).collect(Collectors.toList()));
+            List<String> texts = new ArrayList<>();
+            for (Item item : items) {
+              texts.add(item.getName());
+              if (item.getAttributes() != null) {
+                texts.addAll(item.getAttributes());
+              }
+            }
+            countWords(wordFrequencies, texts);
+          }
+        }
+      }
+
+      List<Suggestion> allSuggestions = new ArrayList<>();
+      suggestions.values().forEach(sourceSuggestions ->
+          allSuggestions.addAll(sourceSuggestions.values()));
+      SuggestionTrie trie = SuggestionTrie.build(allSuggestions);
+      QueryCorrector corrector = new QueryCorrector(wordFrequencies);
+      suggestionTrie = trie;
+      queryCorrector = corrector;
+      log.info("Suggestion trie built with {} suggestions and {} words", trie.size(),
+          corrector.size());
+    } catch (RuntimeException e) {
+      // Keep serving from the previous trie, the next refresh will retry.
+      log.error("Failed to refresh the suggestion trie and the query corrector", e);
+    }
+  }
+
+  /**
+   * Returns the current trie, empty until the first build completes.
+   */
+  public SuggestionTrie getSuggestionTrie() {
+    return suggestionTrie;
+  }
+
+  /**
+   * Returns the current corrector, knowing no word until the first build completes.
+   */
+  public QueryCorrector getQueryCorrector() {
+    return queryCorrector;
+  }
+
+  // Adds one to the frequency of each distinct word of a document.
+  private static void countWords(Map<String, Long> wordFrequencies, List<String> texts) {
+    Set<String> words = new HashSet<>();
+    for (String text : texts) {
+      words.addAll(SearchTokens.tokenize(text));
+    }
+    for (String word : words) {
+      wordFrequencies.merge(word, 1L, Long::sum);
+    }
+  }
+
+  // Adds one to the weight of each distinct text of a document.
+  private static void count(Map<SearchSource, Map<String, Suggestion>> suggestions,
+      SearchSource type, List<String> texts) {
+    if (texts == null) {
+      return;
+    }
+    Map<String, Suggestion> sourceSuggestions =
+        suggestions.computeIfAbsent(type, key -> new HashMap<>());
+    Set<String> counted = new HashSet<>();
+    for (String text : texts) {
+      String phrase = SearchTokens.normalizePhrase(text);
+      if (phrase.isEmpty() || !counted.add(phrase)) {
+        continue;
+      }
+      Suggestion suggestion = sourceSuggestions.get(phrase);
+      if (suggestion == null) {
+        // The first spelling seen is the one suggested.
+        suggestion = new Suggestion(text.trim(), type, 0);
+        sourceSuggestions.put(phrase, suggestion);
+      }
+      suggestion.setWeight(suggestion.getWeight() + 1);
+    }
+  }
+}
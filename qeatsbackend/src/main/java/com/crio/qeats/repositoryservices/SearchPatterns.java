@@ -0,0 +1,140 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.index.SearchTokens;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns search strings into the regular expressions the Mongo queries match with.
+ * The search string is never used as a regex itself: it is normalized like the index keys,
+ * anything but letters, digits, spaces and {@value #PUNCTUATION} is dropped and its length is
+ * capped, then every letter is matched with or without an accent and every punctuation
+ * character literally. Spaces, which stand for any run of dropped characters, match any run
+ * of characters other than letters and digits, so names with parentheses, commas or slashes
+ * are still found by their own text. Hostile input therefore never yields nested quantifiers.
+ * Compiled patterns are kept in a bounded cache, published as the {@value #CACHE_NAME} metrics.
+ */
+@Component
+public class SearchPatterns {
+
+  public static final String CACHE_NAME = "searchPatterns";
+
+  private static final String PUNCTUATION = "&'-.";
+
+  private static final String SEPARATOR = "[^\\p{L}\\p{N}]";
+
+  // Base letters, each followed by its accented lower case forms.
+  private static final Map<Character, String> ACCENTED_LETTERS = accentedLetters();
+
+  @Value("${qeats.search.max-query-length:64}")
+  private int maxQueryLength;
+
+  @Value("${qeats.search.pattern-cache.maximum-size:1000}")
+  private long maximumSize;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Cache<String, Pattern> cache;
+
+  @PostConstruct
+  public void initCache() {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+    GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Returns the pattern matching whole values equal to the search string.
+   * @return null if nothing searchable is left of the search string
+   */
+  public Pattern exactly(String searchString) {
+    return compile(normalize(searchString, maxQueryLength), true);
+  }
+
+  /**
+   * Returns the pattern matching values containing the search string.
+   * @return null if nothing searchable is left of the search string
+   */
+  public Pattern containing(String searchString) {
+    return compile(normalize(searchString, maxQueryLength), false);
+  }
+
+  /**
+   * Normalizes a search string to the characters patterns are built from.
+   * @return the normalized search string, empty if nothing searchable is left of it
+   */
+  public static String normalize(String searchString, int maxLength) {
+    StringBuilder normalized = new StringBuilder();
+    for (char c : SearchTokens.normalizePhrase(searchString).toCharArray()) {
+      if (Character.isLetterOrDigit(c) || PUNCTUATION.indexOf(c) >= 0) {
+        normalized.append(c);
+      } else {
+        normalized.append(' ');
+      }
+    }
+    String phrase = SearchTokens.normalizePhrase(normalized.toString());
+    return phrase.length() <= maxLength ? phrase : phrase.substring(0, maxLength).trim();
+  }
+
+  private Pattern compile(String normalized, boolean exact) {
+    if (normalized.isEmpty()) {
+      return null;
+    }
+    String key = (exact ? "=" : "~") + normalized;
+    Pattern pattern = cache.getIfPresent(key);
+    if (pattern == null) {
+      // Whole values may also start or end with characters dropped from the search string.
+      StringBuilder regex = new StringBuilder(exact ? "^" + SEPARATOR + "*" : "");
+      for (char c : normalized.toCharArray()) {
+        String accentedLetters = ACCENTED_LETTERS.get(c);
+        if (accentedLetters != null) {
+          regex.append('[').append(accentedLetters).append(']');
+        } else if (c == ' ') {
+          regex.append(SEPARATOR).append('+');
+        } else if (Character.isLetterOrDigit(c)) {
+          regex.append(c);
+        } else {
+          regex.append('\\').append(c);
+        }
+      }
+      pattern = Pattern.compile(regex.append(exact ? SEPARATOR + "*$" : "").toString(),
+          Pattern.CASE_INSENSITIVE);
+      cache.put(key, pattern);
+    }
+    return pattern;
+  }
+
+  private static Map<Character, String> accentedLetters() {
+    Map<Character, StringBuilder> variants = new HashMap<>();
+    // Latin-1 Supplement and Latin Extended-A.
+    for (char c = '\u00c0'; c <= '\u017f'; c++) {
+      String base = SearchTokens.normalize(String.valueOf(c));
+      if (Character.isLowerCase(c) && base.length() == 1 && base.charAt(0) >= 'a'
+          && base.charAt(0) <= 'z') {
+        variants.computeIfAbsent(base.charAt(0), letter -> new StringBuilder().append(letter))
+            .append(c);
+      }
+    }
+    Map<Character, String> accentedLetters = new HashMap<>();
+    variants.forEach((letter, letters) -> accentedLetters.put(letter, letters.toString()));
+    return accentedLetters;
+  }
+}
@@ -0,0 +1,17 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+/**
+ * The ways a restaurant can match a search query, in the order their results are listed.
+ */
+public enum SearchSource {
+  NAME,
+  ATTRIBUTES,
+  ITEM_NAME,
+  ITEM_ATTRIBUTES
+}
@@ -0,0 +1,153 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.repositoryservices.SearchSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Runs the search sources of a query concurrently on a bounded pool of its own.
+ * All sources share one deadline, counted from the moment they are submitted. Sources which
+ * fail, miss the deadline or cannot be submitted because the pool is saturated are left out
+ * of the result, which is then flagged as partial.
+ * Sources run within the HTTP request of the caller, if any, so they share what is remembered
+ * for the request.
+ */
+@Component
+@Log4j2
+public class RestaurantSearchFanOut {
+
+  public static final String EXECUTOR_NAME = "searchFanOut";
+
+  @Value("${qeats.search.fan-out.threads:16}")
+  private int threads;
+
+  @Value("${qeats.search.fan-out.queue-capacity:64}")
+  private int queueCapacity;
+
+  @Value("${qeats.search.fan-out.source-timeout-ms:500}")
+  private long sourceTimeoutInMillis;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private ThreadPoolExecutor executor;
+
+  @Data
+  @AllArgsConstructor
+  public static class Result {
+    // Only the sources which completed in time.
+    private Map<SearchSource, List<Restaurant>> restaurantsBySource;
+    private boolean partial;
+  }
+
+  @PostConstruct
+  public void initExecutor() {
+    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("search-fan-out-"),
+        new ThreadPoolExecutor.AbortPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Runs every source and waits until all of them completed or the deadline passed.
+   */
+  public Result invokeAll(Map<SearchSource, Supplier<List<Restaurant>>> sources) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sourceTimeoutInMillis);
+    boolean partial = false;
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+    Map<SearchSource, CompletableFuture<List<Restaurant>>> futures =
+        new EnumMap<>(SearchSource.class);
+    for (Map.Entry<SearchSource, Supplier<List<Restaurant>>> source : sources.entrySet()) {
+      try {
+        futures.put(source.getKey(), CompletableFuture.supplyAsync(
+            withinRequest(requestAttributes, source.getValue()), executor));
+      } catch (RejectedExecutionException e) {
+        log.warn("Search source {} rejected, the fan-out pool is saturated", source.getKey());
+        count("qeats.search.source.rejections", source.getKey());
+        partial = true;
+      }
+    }
+
+    Map<SearchSource, List<Restaurant>> restaurantsBySource = new EnumMap<>(SearchSource.class);
+    for (Map.Entry<SearchSource, CompletableFuture<List<Restaurant>>> future
+        : futures.entrySet()) {
+      try {
+        restaurantsBySource.put(future.getKey(), future.getValue()
+            .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+      } catch (TimeoutException e) {
+        // The source keeps its thread until its query returns; its result is dropped.
+        future.getValue().cancel(true);
+        log.warn("Search source {} missed its {}ms deadline", future.getKey(),
+            sourceTimeoutInMillis);
+        count("qeats.search.source.timeouts", future.getKey());
+        partial = true;
+      } catch (ExecutionException e) {
+        log.error("Search source {} failed", future.getKey(), e.getCause());
+        count("qeats.search.source.failures", future.getKey());
+        partial = true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.values().forEach(pending -> pending.cancel(true));
+        return new Result(restaurantsBySource, true);
+      }
+    }
+    return new Result(restaurantsBySource, partial);
+  }
+
+  // Pool threads are shared by all requests, the request is only set while the source runs.
+  private static Supplier<List<Restaurant>> withinRequest(RequestAttributes requestAttributes,
+      Supplier<List<Restaurant>> source) {
+    if (requestAttributes == null) {
+      return source;
+    }
+    return () -> {
+      RequestContextHolder.setRequestAttributes(requestAttributes);
+      try {
+        return source.get();
+      } finally {
+        RequestContextHolder.resetRequestAttributes();
+      }
+    };
+  }
+
+  private void count(String name, SearchSource searchSource) {
+    meterRegistry.counter(name, "source", searchSource.name()).increment();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.index.SearchTokens;
+import com.crio.qeats.repositoryservices.SearchSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Merges the restaurants found by the search sources of a query into the documented order:
+ * exact name matches, partial name matches, cuisines, item names, item attributes.
+ * Every hit is scored by its match type, then by the order its source listed it in. Item name
+ * sources, the query chains, the search index and the aggregation alike, list restaurants with
+ * an exactly matching item first, so exact item matches rank ahead of partial ones.
+ * Restaurants are deduplicated on their first, best scored, hit and only the best
+ * {@code qeats.search.max-results} are kept, in a bounded heap, so the merged list is never
+ * built in full.
+ */
+@Component
+public class RestaurantSearchRanker {
+
+  public enum MatchType {
+    EXACT_NAME,
+    PARTIAL_NAME,
+    ATTRIBUTE,
+    ITEM_NAME,
+    ITEM_ATTRIBUTE
+  }
+
+  private static final Comparator<RankedRestaurant> BY_SCORE =
+      Comparator.comparingLong(rankedRestaurant -> rankedRestaurant.score);
+
+  @Value("${qeats.search.max-results:100}")
+  private int maxResults;
+
+  private static final class RankedRestaurant {
+    private final long score;
+    private final Restaurant restaurant;
+
+    private RankedRestaurant(long score, Restaurant restaurant) {
+      this.score = score;
+      this.restaurant = restaurant;
+    }
+  }
+
+  /**
+   * Ranks the results of the search sources of a query.
+   * @param searchFor the query, to tell exact name matches from partial ones
+   * @param restaurantsBySource restaurants found by each source, sources may be missing
+   * @return at most {@code qeats.search.max-results} distinct restaurants, best first
+   */
+  public List<Restaurant> rank(String searchFor,
+      Map<SearchSource, List<Restaurant>> restaurantsBySource) {
+    String phrase = SearchTokens.normalizePhrase(searchFor);
+    // The worst kept restaurant is at the head, to be replaced by a better one.
+    PriorityQueue<RankedRestaurant> topRestaurants =
+        new PriorityQueue<>(BY_SCORE.reversed());
+    Set<String> seenRestaurantIds = new HashSet<>();
+    int sequence = 0;
+
+    // Sources are visited best first, so the first hit of a restaurant is its best one.
+    for (SearchSource searchSource : SearchSource.values()) {
+      for (Restaurant restaurant : restaurantsBySource.getOrDefault(searchSource,
+          Collections.emptyList())) {
+        if (!seenRestaurantIds.add(restaurant.getRestaurantId())) {
+          continue;
+        }
+        long score = ((long) matchTypeOf(searchSource, restaurant, phrase).ordinal() << 32)
+            | sequence++;
+        if (topRestaurants.size() < maxResults) {
+          topRestaurants.add(new RankedRestaurant(score, restaurant));
+        } else if (!topRestaurants.isEmpty() && score < topRestaurants.peek().score) {
+          topRestaurants.poll();
+          topRestaurants.add(new RankedRestaurant(score, restaurant));
+        }
+      }
+    }
+
+    List<RankedRestaurant> rankedRestaurants = new ArrayList<>(topRestaurants);
+    rankedRestaurants.sort(BY_SCORE);
+    List<Restaurant> restaurants = new ArrayList<>(rankedRestaurants.size());
+    for (RankedRestaurant rankedRestaurant : rankedRestaurants) {
+      restaurants.add(rankedRestaurant.restaurant);
+    }
+    return restaurants;
+  }
+
+  static MatchType matchTypeOf(SearchSource searchSource, Restaurant restaurant,
+      String phrase) {
+    switch (searchSource) {
+      case NAME:
+        return SearchTokens.normalizePhrase(restaurant.getName()).equals(phrase)
+            ? MatchType.EXACT_NAME : MatchType.PARTIAL_NAME;
+      case ATTRIBUTES:
+        return MatchType.ATTRIBUTE;
+      case ITEM_NAME:
+        return MatchType.ITEM_NAME;
+      default:
+        return MatchType.ITEM_ATTRIBUTE;
+    }
+  }
+}
@@ -9,6 +9,8 @@ package com.crio.qeats.services;
 
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import java.time.LocalTime;
 
 public interface RestaurantService {
@@ -19,6 +21,8 @@ public interface RestaurantService {
    * - service radius is 3KMs.
    * - All other times, serving radius is 5KMs.
    * - If there are no restaurants, return empty list of restaurants.
+   * - If an attribute filter is given, only the restaurants satisfying it are returned.
+   * - If fields are given, restaurants may only have these fields set.
    * @param getRestaurantsRequest valid lat/long
    * @param currentTime current time.
    * @return GetRestaurantsResponse object containing a list of open restaurants or an
@@ -27,6 +31,15 @@ public interface RestaurantService {
   GetRestaurantsResponse findAllRestaurantsCloseBy(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime);
 
+  /**
+   * Get the radius restaurants are served within at the given time.
+   * - For peak hours: 8AM - 10AM, 1PM-2PM, 7PM-9PM, 3KMs.
+   * - All other times, 5KMs.
+   * @param currentTime current time.
+   * @return serving radius in kilometers.
+   */
+  Double getServingRadiusInKms(LocalTime currentTime);
+
   /**
    * Get the restaurants by processing the query.
    * -Ordering rules
@@ -44,6 +57,7 @@ public interface RestaurantService {
    * - service radius is 3KMs.
    * - All other times, serving radius is 5KMs.
    * - If there are no restaurants, return empty list of restaurants.
+   * - If an attribute filter is given, only the restaurants satisfying it are returned.
    * @param getRestaurantsRequest valid lat/long and searchFor
    * @return GetRestaurantsResponse object containing a list of open restaurants or an
    *     empty list if none fits the criteria.
@@ -55,6 +69,8 @@ public interface RestaurantService {
   /**
    * Identical input and output to @link{findRestaurantsBySearchQuery} but
    * use a multi-threaded implementation.
+   * If nothing matches the searchFor string, it is retried once with its misspelled words
+   * corrected, and the corrected string is returned with the results.
    * @param getRestaurantsRequest valid lat/long with searchFor string
    * @param currentTime current time
    * @return GetRestaurantsResponse object containing a list of open restaurants or an
@@ -62,4 +78,14 @@ public interface RestaurantService {
    */
   GetRestaurantsResponse findRestaurantsBySearchQueryMt(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime);
+
+  /**
+   * Get the completions of a partially typed search.
+   * - Restaurant names, cuisines and item names starting with the prefix, ignoring case and
+   *   accents.
+   * - The most widespread ones first, at most qeats.suggest.max-results of them.
+   * @param getSuggestionsRequest the prefix typed so far
+   * @return GetSuggestionsResponse object containing a list of suggestions or an empty list
+   */
+  GetSuggestionsResponse findSuggestions(GetSuggestionsRequest getSuggestionsRequest);
 }
@@ -8,22 +8,30 @@
 package com.crio.qeats.services;
 
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.index.AttributeFilter;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import com.crio.qeats.repositoryservices.RestaurantSearchAggregation;
+import com.crio.qeats.repositoryservices.RestaurantSuggestionsMaintainer;
+import com.crio.qeats.repositoryservices.SearchSource;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -35,25 +43,69 @@ public class RestaurantServiceImpl implements RestaurantService {
   @Autowired
   private RestaurantRepositoryService restaurantRepositoryService;
 
+  // Only present with qeats.search.backend=aggregation.
+  @Autowired(required = false)
+  private RestaurantSearchAggregation restaurantSearchAggregation;
+
+  @Autowired
+  private RestaurantSearchFanOut restaurantSearchFanOut;
+
+  @Autowired
+  private RestaurantSearchRanker restaurantSearchRanker;
+
+  @Autowired
+  private RestaurantSuggestionsMaintainer restaurantSuggestionsMaintainer;
+
+  @Value("${qeats.suggest.max-results:10}")
+  private int maxSuggestions;
+
+  @Value("${qeats.search.fuzzy.enabled:true}")
+  private boolean fuzzySearchEnabled;
+
+  @Value("${qeats.search.fuzzy.max-distance:2}")
+  private int fuzzyMaxDistance;
+
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSAPI - Implement findAllRestaurantsCloseby.
   // Check RestaurantService.java file for the interface contract.
   @Override
   public GetRestaurantsResponse findAllRestaurantsCloseBy(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
-        Double servingRadiusInKms;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.US);
-        if(((currentTime.isAfter(LocalTime.parse("07:59:59",formatter)))&&(currentTime.isBefore(LocalTime.parse("10:00:01",formatter))))||((currentTime.isAfter(LocalTime.parse("12:59:59", formatter)))&&(currentTime.isBefore(LocalTime.parse("14:00:01", formatter))))||((currentTime.isAfter(LocalTime.parse("18:59:59",formatter)))&&(currentTime.isBefore(LocalTime.parse("21:00:01",formatter))))){
-          servingRadiusInKms=peakHoursServingRadiusInKms;
+        Double servingRadiusInKms = getServingRadiusInKms(currentTime);
+        AttributeFilter attributeFilter =
+            AttributeFilter.parse(getRestaurantsRequest.getAttributes());
+        if (!attributeFilter.isEmpty()) {
+          return new GetRestaurantsResponse(restaurantRepositoryService
+              .findRestaurantsByAttributeFilter(getRestaurantsRequest.getLatitude(),
+                  getRestaurantsRequest.getLongitude(), attributeFilter, currentTime,
+                  servingRadiusInKms));
         }
-        else{ 
-          servingRadiusInKms=normalHoursServingRadiusInKms;
+        RestaurantFields fields = RestaurantFields.parse(getRestaurantsRequest.getFields());
+        if (!fields.isAll()) {
+          return new GetRestaurantsResponse(restaurantRepositoryService
+              .findAllRestaurantsCloseBy(getRestaurantsRequest.getLatitude(),
+                  getRestaurantsRequest.getLongitude(), currentTime, servingRadiusInKms, fields));
         }
         List<Restaurant> restaurants=restaurantRepositoryService.findAllRestaurantsCloseBy(getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(), currentTime, servingRadiusInKms);
      return new GetRestaurantsResponse(restaurants);
   }
 
 
+  @Override
+  public Double getServingRadiusInKms(LocalTime currentTime) {
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.US);
+    if (((currentTime.isAfter(LocalTime.parse("07:59:59", formatter)))
+        && (currentTime.isBefore(LocalTime.parse("10:00:01", formatter))))
+        || ((currentTime.isAfter(LocalTime.parse("12:59:59", formatter)))
+        && (currentTime.isBefore(LocalTime.parse("14:00:01", formatter))))
+        || ((currentTime.isAfter(LocalTime.parse("18:59:59", formatter)))
+        && (currentTime.isBefore(LocalTime.parse("21:00:01", formatter))))) {
+      return peakHoursServingRadiusInKms;
+    }
+    return normalHoursServingRadiusInKms;
+  }
+
+
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
   // Implement findRestaurantsBySearchQuery. The request object has the search string.
   // We have to combine results from multiple sources:
@@ -69,41 +121,34 @@ public class RestaurantServiceImpl implements RestaurantService {
 
 
 
-      Double servingRadiusInKms;
+      Double servingRadiusInKms = getServingRadiusInKms(currentTime);
       List<Restaurant> restaurants = new ArrayList<>();    
     
-      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.US);
-        if(((currentTime.isAfter(LocalTime.parse("07:59:59",formatter)))&&(currentTime.isBefore(LocalTime.parse("10:00:01",formatter))))||
-        ((currentTime.isAfter(LocalTime.parse("12:59:59", formatter)))&&(currentTime.isBefore(LocalTime.parse("14:00:01", formatter))))||
-        ((currentTime.isAfter(LocalTime.parse("18:59:59",formatter)))&&(currentTime.isBefore(LocalTime.parse("21:00:01",formatter))))){
-          servingRadiusInKms = peakHoursServingRadiusInKms;
-        } else{
-          servingRadiusInKms = normalHoursServingRadiusInKms;         
+        if(getRestaurantsRequest.getSearchFor().length() != 0 && restaurantSearchAggregation != null){
+          return new GetRestaurantsResponse(retainFilteredRestaurants(getRestaurantsRequest,
+              currentTime, servingRadiusInKms, findRestaurantsByAggregation(
+                  getRestaurantsRequest, getRestaurantsRequest.getSearchFor(), currentTime,
+                  servingRadiusInKms)));
         }
         if(getRestaurantsRequest.getSearchFor().length() != 0){
-          List<List<Restaurant>> allRestaurants = new ArrayList<>();       
-        
+          Map<SearchSource, List<Restaurant>> restaurantsBySource = new EnumMap<>(SearchSource.class);
 
-          allRestaurants.add(new ArrayList(restaurantRepositoryService.findRestaurantsByName(getRestaurantsRequest.getLatitude(), 
-          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms)));
+          restaurantsBySource.put(SearchSource.NAME, restaurantRepositoryService.findRestaurantsByName(getRestaurantsRequest.getLatitude(), 
+          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms));
          
-          allRestaurants.add(new ArrayList(restaurantRepositoryService.findRestaurantsByAttributes(getRestaurantsRequest.getLatitude(), 
-          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms)));
+          restaurantsBySource.put(SearchSource.ATTRIBUTES, restaurantRepositoryService.findRestaurantsByAttributes(getRestaurantsRequest.getLatitude(), 
+          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms));
         
-          allRestaurants.add(new ArrayList(restaurantRepositoryService.findRestaurantsByItemName(getRestaurantsRequest.getLatitude(), 
-          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms)));
+          restaurantsBySource.put(SearchSource.ITEM_NAME, restaurantRepositoryService.findRestaurantsByItemName(getRestaurantsRequest.getLatitude(), 
+          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms));
          
-          allRestaurants.add(new ArrayList(restaurantRepositoryService.findRestaurantsByItemAttributes(getRestaurantsRequest.getLatitude(), 
-          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms))); 
+          restaurantsBySource.put(SearchSource.ITEM_ATTRIBUTES, restaurantRepositoryService.findRestaurantsByItemAttributes(getRestaurantsRequest.getLatitude(), 
+          getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor(), currentTime, servingRadiusInKms)); 
         
-   
-           for(List<Restaurant> restaurant : allRestaurants) {
-               for(Restaurant restaurant2 : restaurant) {
-                  restaurants.add(restaurant2);
-               }
-           }
-           System.err.println("in the class data = "+restaurants);
-           return new GetRestaurantsResponse(restaurants); 
+          restaurants = restaurantSearchRanker.rank(getRestaurantsRequest.getSearchFor(),
+              restaurantsBySource);
+           return new GetRestaurantsResponse(retainFilteredRestaurants(getRestaurantsRequest,
+               currentTime, servingRadiusInKms, restaurants));
         
         }
                        
@@ -111,6 +156,35 @@ public class RestaurantServiceImpl implements RestaurantService {
   }
   
 
+  private List<Restaurant> findRestaurantsByAggregation(
+      GetRestaurantsRequest getRestaurantsRequest, String searchFor, LocalTime currentTime,
+      Double servingRadiusInKms) {
+    Map<SearchSource, List<Restaurant>> restaurantsBySource =
+        restaurantSearchAggregation.findRestaurantsBySearchQuery(
+            getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(),
+            searchFor, currentTime, servingRadiusInKms);
+
+    return restaurantSearchRanker.rank(searchFor, restaurantsBySource);
+  }
+
+  // Search results only keep the restaurants satisfying the attribute filter, if any.
+  private List<Restaurant> retainFilteredRestaurants(GetRestaurantsRequest getRestaurantsRequest,
+      LocalTime currentTime, Double servingRadiusInKms, List<Restaurant> restaurants) {
+    AttributeFilter attributeFilter = AttributeFilter.parse(getRestaurantsRequest.getAttributes());
+    if (attributeFilter.isEmpty() || restaurants.isEmpty()) {
+      return restaurants;
+    }
+    Set<String> filteredRestaurantIds = restaurantRepositoryService
+        .findRestaurantsByAttributeFilter(getRestaurantsRequest.getLatitude(),
+            getRestaurantsRequest.getLongitude(), attributeFilter, currentTime,
+            servingRadiusInKms)
+        .stream().map(Restaurant::getRestaurantId).collect(Collectors.toSet());
+    return restaurants.stream()
+        .filter(restaurant -> filteredRestaurantIds.contains(restaurant.getRestaurantId()))
+        .collect(Collectors.toList());
+  }
+
+
   // TODO: CRIO_TASK_MODULE_MULTITHREADING
   // Implement multi-threaded version of RestaurantSearch.
   // Implement variant of findRestaurantsBySearchQuery which is at least 1.5x time faster than
@@ -119,111 +193,68 @@ public class RestaurantServiceImpl implements RestaurantService {
   @Override
   public GetRestaurantsResponse findRestaurantsBySearchQueryMt(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
- 
-        Double servingRadiusInKms;
-        List<Restaurant> restaurants = new ArrayList<>();    
-      
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.US);
-          if(((currentTime.isAfter(LocalTime.parse("07:59:59",formatter)))&&(currentTime.isBefore(LocalTime.parse("10:00:01",formatter))))||
-          ((currentTime.isAfter(LocalTime.parse("12:59:59", formatter)))&&(currentTime.isBefore(LocalTime.parse("14:00:01", formatter))))||
-          ((currentTime.isAfter(LocalTime.parse("18:59:59",formatter)))&&(currentTime.isBefore(LocalTime.parse("21:00:01",formatter))))){
-            servingRadiusInKms = peakHoursServingRadiusInKms;
-          } else{
-            servingRadiusInKms = normalHoursServingRadiusInKms;         
-          }
-          String searchFor = getRestaurantsRequest.getSearchFor();
-          Set<String> restaurantSet = new HashSet<>();
-          List<List<Restaurant>> allRestaurants = new ArrayList<>();      
-      
-          if(getRestaurantsRequest.getSearchFor().length() != 0){
-          
-            
-            /// getting returant  data byResturnatName  
-            Future<List<Restaurant>> futureGetRestaurantsByNameList
-              = restaurantRepositoryService.findRestaurantsByNameAsync(
-            getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(),
-            getRestaurantsRequest.getSearchFor() , currentTime, servingRadiusInKms);  
-
-            List<Restaurant> restaurantByName = getDataFromThreadPool(futureGetRestaurantsByNameList);
-                                          
-            // getting data By Resturnat Attributes .....
-            Future<List<Restaurant>> futureGetRestaurantsByResturantAttributes
-              = restaurantRepositoryService.findRestaurantsByAttributesAsync(
-            getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(),
-            getRestaurantsRequest.getSearchFor() , currentTime, servingRadiusInKms);  
-            List<Restaurant> restaurantByResturantAttributes = getDataFromThreadPool(futureGetRestaurantsByResturantAttributes);
-
-   
-             ///  getting data from item  name 
-             Future<List<Restaurant>> futureGetRestaurantsByItemName
-               = restaurantRepositoryService.findRestaurantsByItemNameAsync(
-             getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(),
-             getRestaurantsRequest.getSearchFor() , currentTime, servingRadiusInKms);  
-        
-            List<Restaurant> restaurantsByItemName = getDataFromThreadPool(futureGetRestaurantsByItemName);
-
-             //  gettting from itemAttributes
-
-            Future<List<Restaurant>> futureGetRestaurantsByItemAttributes
-              = restaurantRepositoryService.findRestaurantsByItemAttributesAsync(
-            getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(),
-            getRestaurantsRequest.getSearchFor() , currentTime, servingRadiusInKms);  
-   
-            List<Restaurant> restaurantsByItemAttributes = getDataFromThreadPool(futureGetRestaurantsByItemAttributes);
-    
-            allRestaurants.add(restaurantByName);
-            allRestaurants.add(restaurantByResturantAttributes);
-            allRestaurants.add(restaurantsByItemName);
-            allRestaurants.add(restaurantsByItemAttributes);
-
-          //   allRestaurants.add(restaurantRepositoryService.findRestaurantsByName(getRestaurantsRequest.getLatitude(), getRestaurantsRequest.getLongitude(), searchFor, currentTime, servingRadiusInKms));
-  
-          // //By Attributes
-          // allRestaurants.add(restaurantRepositoryService.findRestaurantsByAttributes(getRestaurantsRequest.getLatitude(),
-          //       getRestaurantsRequest.getLongitude(), searchFor, currentTime, servingRadiusInKms));
-  
-          // //By ItemName
-          // allRestaurants.add(restaurantRepositoryService.findRestaurantsByItemName(getRestaurantsRequest.getLatitude(),
-          //     getRestaurantsRequest.getLongitude(), searchFor, currentTime, servingRadiusInKms));
-  
-          // //By ItemAttributes
-          // allRestaurants.add(restaurantRepositoryService.findRestaurantsByItemAttributes(getRestaurantsRequest.getLatitude(),
-          //     getRestaurantsRequest.getLongitude(), searchFor, currentTime, servingRadiusInKms));
-      
+    Double servingRadiusInKms = getServingRadiusInKms(currentTime);
+    String searchFor = getRestaurantsRequest.getSearchFor();
+    if (searchFor == null || searchFor.isEmpty()) {
+      return new GetRestaurantsResponse(new ArrayList<>());
+    }
 
+    GetRestaurantsResponse getRestaurantsResponse = findRestaurantsConcurrently(
+        getRestaurantsRequest, searchFor, currentTime, servingRadiusInKms);
+    if (fuzzySearchEnabled && getRestaurantsResponse.getRestaurants().isEmpty()
+        && !getRestaurantsResponse.isPartial()) {
+      // Only searches matching nothing pay for the correction and the second search.
+      String correctedSearchFor = restaurantSuggestionsMaintainer.getQueryCorrector()
+          .correct(searchFor, fuzzyMaxDistance);
+      if (correctedSearchFor != null) {
+        GetRestaurantsResponse correctedResponse = findRestaurantsConcurrently(
+            getRestaurantsRequest, correctedSearchFor, currentTime, servingRadiusInKms);
+        if (!correctedResponse.getRestaurants().isEmpty()) {
+          correctedResponse.setCorrectedSearchFor(correctedSearchFor);
+          return correctedResponse;
+        }
+      }
+    }
+    return getRestaurantsResponse;
+  }
 
+  private GetRestaurantsResponse findRestaurantsConcurrently(
+      GetRestaurantsRequest getRestaurantsRequest, String searchFor, LocalTime currentTime,
+      Double servingRadiusInKms) {
+    if (restaurantSearchAggregation != null) {
+      // A single round trip already; there is nothing to run concurrently.
+      return new GetRestaurantsResponse(retainFilteredRestaurants(getRestaurantsRequest,
+          currentTime, servingRadiusInKms, findRestaurantsByAggregation(getRestaurantsRequest,
+              searchFor, currentTime, servingRadiusInKms)));
+    }
 
-            for(List<Restaurant> restaurant : allRestaurants ){
-              if(restaurant != null)
-               for(Restaurant restaurant2 : restaurant)
-                  //  restaurants.add(restaurant2);
-                   if(!restaurantSet.contains(restaurant2.getRestaurantId())){
-                      restaurantSet.add(restaurant2.getName());
-                      restaurants.add(restaurant2);
-                    }
+    Double latitude = getRestaurantsRequest.getLatitude();
+    Double longitude = getRestaurantsRequest.getLongitude();
+    Map<SearchSource, Supplier<List<Restaurant>>> sources = new EnumMap<>(SearchSource.class);
+    sources.put(SearchSource.NAME, () -> restaurantRepositoryService.findRestaurantsByName(
+        latitude, longitude, searchFor, currentTime, servingRadiusInKms));
+    sources.put(SearchSource.ATTRIBUTES, () -> restaurantRepositoryService
+        .findRestaurantsByAttributes(latitude, longitude, searchFor, currentTime,
+            servingRadiusInKms));
+    sources.put(SearchSource.ITEM_NAME, () -> restaurantRepositoryService
+        .findRestaurantsByItemName(latitude, longitude, searchFor, currentTime,
+            servingRadiusInKms));
+    sources.put(SearchSource.ITEM_ATTRIBUTES, () -> restaurantRepositoryService
+        .findRestaurantsByItemAttributes(latitude, longitude, searchFor, currentTime,
+            servingRadiusInKms));
 
-            }
-         return new GetRestaurantsResponse(restaurants);           
-       }                         
+    RestaurantSearchFanOut.Result result = restaurantSearchFanOut.invokeAll(sources);
+    GetRestaurantsResponse getRestaurantsResponse = new GetRestaurantsResponse(
+        retainFilteredRestaurants(getRestaurantsRequest, currentTime, servingRadiusInKms,
+            restaurantSearchRanker.rank(searchFor, result.getRestaurantsBySource())));
+    getRestaurantsResponse.setPartial(result.isPartial());
+    return getRestaurantsResponse;
+  }
 
-    return new GetRestaurantsResponse(restaurants);    
 
+  @Override
+  public GetSuggestionsResponse findSuggestions(GetSuggestionsRequest getSuggestionsRequest) {
+    return new GetSuggestionsResponse(restaurantSuggestionsMaintainer.getSuggestionTrie()
+        .complete(getSuggestionsRequest.getPrefix(), maxSuggestions));
   }
-
-  ///  gettting dATA FROM Thread Pool
-  public  List<Restaurant> getDataFromThreadPool(Future<List<Restaurant>> future){
-    List<Restaurant> restaurant  ;
-    try{
-      while(true){
-        if(future.isDone()){
-          restaurant = future.get();
-           break;
-        }
-       }}catch(Exception e){
-        e.printStackTrace();
-        return new ArrayList<>();
-      }      
-      return new ArrayList<>();
-    }
 }
-
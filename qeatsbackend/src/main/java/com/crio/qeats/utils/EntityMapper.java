@@ -0,0 +1,71 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Copies entities into the DTOs returned by the APIs, field by field.
+ * Replaces ModelMapper on the request path, which needs a mapper per call and introspects the
+ * types on its first use of each. Like ModelMapper, lists are copied, never shared, and null
+ * fields stay null. A field added to an entity and its DTO must be added here too.
+ */
+public final class EntityMapper {
+
+  private EntityMapper() {
+  }
+
+  public static Restaurant toRestaurant(RestaurantEntity restaurantEntity) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setId(restaurantEntity.getId());
+    restaurant.setRestaurantId(restaurantEntity.getRestaurantId());
+    restaurant.setName(restaurantEntity.getName());
+    restaurant.setCity(restaurantEntity.getCity());
+    restaurant.setImageUrl(restaurantEntity.getImageUrl());
+    restaurant.setLatitude(restaurantEntity.getLatitude());
+    restaurant.setLongitude(restaurantEntity.getLongitude());
+    restaurant.setOpensAt(restaurantEntity.getOpensAt());
+    restaurant.setClosesAt(restaurantEntity.getClosesAt());
+    restaurant.setAttributes(copyOf(restaurantEntity.getAttributes()));
+    return restaurant;
+  }
+
+  public static List<Restaurant> toRestaurants(Collection<RestaurantEntity> restaurantEntities) {
+    List<Restaurant> restaurants = new ArrayList<>(restaurantEntities.size());
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      restaurants.add(toRestaurant(restaurantEntity));
+    }
+    return restaurants;
+  }
+
+  /**
+   * Maps an item of the items collection to the item embedded in menus.
+   * Menu items have whole prices, fractions are dropped.
+   */
+  public static Item toItem(ItemEntity itemEntity) {
+    Item item = new Item();
+    item.setId(itemEntity.getId());
+    item.setItemId(itemEntity.getItemId());
+    item.setName(itemEntity.getName());
+    item.setImageUrl(itemEntity.getImageUrl());
+    item.setAttributes(copyOf(itemEntity.getAttributes()));
+    if (itemEntity.getPrice() != null) {
+      item.setPrice(itemEntity.getPrice().intValue());
+    }
+    return item;
+  }
+
+  private static ArrayList<String> copyOf(List<String> values) {
+    return values == null ? null : new ArrayList<>(values);
+  }
+}
@@ -0,0 +1,102 @@
+
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Helpers to map circles to the geohash cells they overlap.
+ */
+public class GeoHashUtils {
+
+  private GeoHashUtils() { /* utility */ }
+
+  /**
+   * Returns the geohash cells of the given precision overlapping the bounding box of a circle,
+   * row by row from south-west to north-east.
+   * Every point within the radius lies in one of the returned cells.
+   * @param latitude latitude of the center
+   * @param longitude longitude of the center
+   * @param radiusInKms radius of the circle
+   * @param precision number of geohash characters
+   * @return base32 geohashes of the covering cells
+   */
+  public static List<String> findCoveringCells(double latitude, double longitude,
+      double radiusInKms, int precision) {
+    double latitudeDelta = GeoUtils.latitudeDeltaInDegrees(radiusInKms);
+    double longitudeDelta = GeoUtils.longitudeDeltaInDegrees(latitude, radiusInKms);
+    double minLatitude = Math.max(-90, latitude - latitudeDelta);
+    double maxLatitude = Math.min(90, latitude + latitudeDelta);
+    double westLongitude = longitudeDelta >= 180 ? -180
+        : normalizeLongitude(longitude - longitudeDelta);
+    double longitudeSpan = Math.min(360, 2 * longitudeDelta);
+
+    Set<String> cells = new LinkedHashSet<>();
+    GeoHash rowStart = GeoHash.withCharacterPrecision(minLatitude, westLongitude, precision);
+    while (true) {
+      BoundingBox rowBox = rowStart.getBoundingBox();
+      int columns = (int) Math.round(360 / rowBox.getLongitudeSize());
+      GeoHash cell = rowStart;
+      // Longitude covered so far, measured eastwards from westLongitude.
+      double covered = rowBox.getMaxLon() - westLongitude;
+      for (int column = 0; column < columns; column++) {
+        cells.add(cell.toBase32());
+        if (covered >= longitudeSpan) {
+          break;
+        }
+        cell = cell.getEasternNeighbour();
+        covered += rowBox.getLongitudeSize();
+      }
+
+      if (rowBox.getMaxLat() >= maxLatitude || rowBox.getMaxLat() >= 90) {
+        break;
+      }
+      rowStart = rowStart.getNorthernNeighbour();
+    }
+
+    return new ArrayList<>(cells);
+  }
+
+  /**
+   * Returns the base32 geohash of the cell containing a point.
+   */
+  public static String cellOf(double latitude, double longitude, int precision) {
+    return GeoHash.geoHashStringWithCharacterPrecision(latitude, longitude, precision);
+  }
+
+  /**
+   * Returns the center of a cell.
+   */
+  public static WGS84Point centerOf(String cell) {
+    return GeoHash.fromGeohashString(cell).getBoundingBox().getCenterPoint();
+  }
+
+  /**
+   * Returns the distance from the center of a cell to its farthest corner, so that the circle of
+   * this radius around {@link #centerOf(String)} contains the whole cell.
+   */
+  public static double circumradiusInKms(String cell) {
+    BoundingBox box = GeoHash.fromGeohashString(cell).getBoundingBox();
+    WGS84Point center = box.getCenterPoint();
+    // The corner nearer to the equator is the farthest one from the center.
+    double farLatitude = Math.abs(box.getMinLat()) > Math.abs(box.getMaxLat())
+        ? box.getMaxLat() : box.getMinLat();
+    return GeoUtils.findDistanceInKm(center.getLatitude(), center.getLongitude(),
+        farLatitude, box.getMaxLon());
+  }
+
+  private static double normalizeLongitude(double longitude) {
+    return ((longitude + 180) % 360 + 360) % 360 - 180;
+  }
+}
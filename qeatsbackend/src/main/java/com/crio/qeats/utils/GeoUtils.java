@@ -14,11 +14,46 @@ import lombok.Data;
 @AllArgsConstructor
 public class GeoUtils {
 
+  // Radius of the earth used by all distance computations.
+  public static final double EARTH_RADIUS_IN_KMS = 6371;
+
+  // Keeps points lying exactly on a bounding box edge inside it despite rounding.
+  private static final double BOUNDING_BOX_EPSILON_IN_DEGREES = 1e-9;
+
   public static double findDistanceInKm(double srcLatitude, double srcLongitude,
       double dstLatitude, double dstLongitude) {
     return distance(srcLatitude, dstLatitude, srcLongitude, dstLongitude, 0, 0);
   }
 
+  /**
+   * Half the latitude span of the bounding box of a circle.
+   * @param radiusInKms radius of the circle
+   * @return latitude delta in degrees, slightly padded
+   */
+  public static double latitudeDeltaInDegrees(double radiusInKms) {
+    return Math.toDegrees(radiusInKms / EARTH_RADIUS_IN_KMS) + BOUNDING_BOX_EPSILON_IN_DEGREES;
+  }
+
+  /**
+   * Half the longitude span of the bounding box of a circle.
+   * @param latitude latitude of the center of the circle
+   * @param radiusInKms radius of the circle
+   * @return longitude delta in degrees, slightly padded, or 180 if the circle spans all
+   *     longitudes (it contains a pole)
+   */
+  public static double longitudeDeltaInDegrees(double latitude, double radiusInKms) {
+    double latitudeDelta = latitudeDeltaInDegrees(radiusInKms);
+    if (latitude - latitudeDelta <= -90 || latitude + latitudeDelta >= 90) {
+      return 180;
+    }
+    double sinRatio = Math.sin(radiusInKms / EARTH_RADIUS_IN_KMS)
+        / Math.cos(Math.toRadians(latitude));
+    if (sinRatio >= 1) {
+      return 180;
+    }
+    return Math.min(180, Math.toDegrees(Math.asin(sinRatio)) + BOUNDING_BOX_EPSILON_IN_DEGREES);
+  }
+
   /**
    * THIS IS BORROWED CODE. Calculate distance between two points in latitude and longitude taking
    * into account height difference. If you are not interested in height difference pass 0.0. Uses
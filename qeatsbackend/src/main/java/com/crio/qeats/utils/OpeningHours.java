@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Opening hours packed into ints, checked without parsing nor allocating anything.
+ * Restaurants open at {@code opensAt} and close at {@code closesAt}, "HH:mm" times, or comma
+ * separated lists of them paired in order for several slots a day: "11:00,18:00" to
+ * "15:00,23:00" is open from 11:00 to 15:00 and from 18:00 to 23:00. A slot closing at or
+ * before its opening time runs past midnight. Restaurants are closed exactly at their opening
+ * and closing times, and never open if their hours cannot be parsed.
+ * Times are encoded as twice their minute of the day, plus one past the first instant of the
+ * minute, so that the strict comparisons against slot bounds are integer ones. A slot is packed
+ * as its first open time in the high 16 bits and its first closed time in the low ones.
+ * Restaurants share a handful of distinct hours, so those looked up by {@link #of} are parsed
+ * once for the whole process rather than once per loaded restaurant.
+ */
+public final class OpeningHours {
+
+  private static final int END_OF_DAY = 24 * 60 * 2;
+
+  private static final int[] NEVER_OPEN = new int[0];
+
+  // Keyed by opensAt and closesAt joined with a character valid times never contain.
+  private static final Cache<String, int[]> PARSED = CacheBuilder.newBuilder()
+      .maximumSize(1024)
+      .build();
+
+  private OpeningHours() {
+  }
+
+  /**
+   * Returns the packed slots of the given opening hours, parsed on their first lookup only.
+   * The slots are shared between callers and must not be modified.
+   */
+  public static int[] of(String opensAt, String closesAt) {
+    if (opensAt == null || closesAt == null) {
+      return NEVER_OPEN;
+    }
+    String key = opensAt + '|' + closesAt;
+    int[] slots = PARSED.getIfPresent(key);
+    if (slots == null) {
+      slots = parse(opensAt, closesAt);
+      PARSED.put(key, slots);
+    }
+    return slots;
+  }
+
+  /**
+   * Returns the packed slots of the given opening hours, one or two per slot of the day.
+   */
+  public static int[] parse(String opensAt, String closesAt) {
+    if (opensAt == null || closesAt == null) {
+      return NEVER_OPEN;
+    }
+    String[] openingTimes = opensAt.split(",");
+    String[] closingTimes = closesAt.split(",");
+    if (openingTimes.length != closingTimes.length) {
+      return NEVER_OPEN;
+    }
+
+    int[] slots = new int[openingTimes.length * 2];
+    int count = 0;
+    try {
+      for (int i = 0; i < openingTimes.length; i++) {
+        int opens = timeOf(LocalTime.parse(openingTimes[i].trim()));
+        int closes = timeOf(LocalTime.parse(closingTimes[i].trim()));
+        if (opens < closes) {
+          slots[count++] = pack(opens + 1, closes);
+        } else {
+          slots[count++] = pack(opens + 1, END_OF_DAY);
+          if (closes > 0) {
+            slots[count++] = pack(0, closes);
+          }
+        }
+      }
+    } catch (DateTimeParseException e) {
+      return NEVER_OPEN;
+    }
+    return Arrays.copyOf(slots, count);
+  }
+
+  /**
+   * Encodes a time of the day, to check against packed slots.
+   */
+  public static int timeOf(LocalTime time) {
+    return (time.getHour() * 60 + time.getMinute()) * 2
+        + (time.getSecond() == 0 && time.getNano() == 0 ? 0 : 1);
+  }
+
+  public static boolean isOpen(int[] slots, LocalTime time) {
+    return isOpen(slots, timeOf(time));
+  }
+
+  /**
+   * Returns whether packed slots are open at an encoded time.
+   */
+  public static boolean isOpen(int[] slots, int time) {
+    for (int slot : slots) {
+      if (time >= slot >>> 16 && time < (slot & 0xFFFF)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int pack(int firstOpenTime, int firstClosedTime) {
+    return firstOpenTime << 16 | firstClosedTime;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+class CacheHealthTrackerTest {
+
+  private final Jedis jedis = mock(Jedis.class);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private CacheHealthTracker cacheHealthTracker;
+
+  @BeforeEach
+  void setup() {
+    JedisPool jedisPool = mock(JedisPool.class);
+    when(jedisPool.getResource()).thenReturn(jedis);
+    RedisConfiguration redisConfiguration = mock(RedisConfiguration.class);
+    when(redisConfiguration.getJedisPool()).thenReturn(jedisPool);
+
+    cacheHealthTracker = new CacheHealthTracker();
+    ReflectionTestUtils.setField(cacheHealthTracker, "failureThreshold", 3);
+    ReflectionTestUtils.setField(cacheHealthTracker, "slowCallThresholdInMillis", 100L);
+    ReflectionTestUtils.setField(cacheHealthTracker, "redisConfiguration", redisConfiguration);
+    ReflectionTestUtils.setField(cacheHealthTracker, "meterRegistry", meterRegistry);
+    cacheHealthTracker.registerMetrics();
+  }
+
+  @AfterEach
+  void teardown() {
+    cacheHealthTracker.shutdown();
+  }
+
+  @Test
+  public void opensAfterConsecutiveFailuresOnly() {
+    JedisConnectionException failure = new JedisConnectionException("refused");
+    cacheHealthTracker.recordFailure(failure);
+    cacheHealthTracker.recordFailure(failure);
+    cacheHealthTracker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+    cacheHealthTracker.recordFailure(failure);
+    cacheHealthTracker.recordFailure(failure);
+    assertTrue(cacheHealthTracker.isAvailable());
+
+    cacheHealthTracker.recordFailure(failure);
+    assertFalse(cacheHealthTracker.isAvailable());
+    assertEquals(0, meterRegistry.get("qeats.cache.redis.available").gauge().value());
+  }
+
+  @Test
+  public void slowCallsCountAsFailures() {
+    for (int i = 0; i < 3; i++) {
+      cacheHealthTracker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    assertFalse(cacheHealthTracker.isAvailable());
+  }
+
+  @Test
+  public void probeOpensAndClosesTheCircuit() {
+    when(jedis.ping()).thenThrow(new JedisConnectionException("refused"));
+    for (int i = 0; i < 3; i++) {
+      cacheHealthTracker.probe();
+    }
+    assertFalse(cacheHealthTracker.isAvailable());
+
+    doReturn("PONG").when(jedis).ping();
+    cacheHealthTracker.probe();
+    assertTrue(cacheHealthTracker.isAvailable());
+    assertEquals(1, meterRegistry.get("qeats.cache.redis.available").gauge().value());
+  }
+
+  @Test
+  public void probeRunsOnItsOwnThread() throws InterruptedException {
+    ReflectionTestUtils.setField(cacheHealthTracker, "probeIntervalInMillis", 10L);
+    when(jedis.ping()).thenThrow(new JedisConnectionException("refused"));
+    cacheHealthTracker.startProbe();
+    awaitAvailability(false);
+
+    doReturn("PONG").when(jedis).ping();
+    awaitAvailability(true);
+  }
+
+  private void awaitAvailability(boolean available) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (cacheHealthTracker.isAvailable() != available && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(available, cacheHealthTracker.isAvailable());
+  }
+}
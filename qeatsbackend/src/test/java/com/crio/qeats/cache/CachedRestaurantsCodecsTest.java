@@ -0,0 +1,116 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CachedRestaurantsCodecsTest {
+
+  private final BinaryCachedRestaurantsCodec binaryCodec = new BinaryCachedRestaurantsCodec();
+  private final JsonCachedRestaurantsCodec jsonCodec = new JsonCachedRestaurantsCodec();
+  private CachedRestaurantsCodecs cachedRestaurantsCodecs;
+
+  @BeforeEach
+  void setup() {
+    cachedRestaurantsCodecs = codecsWriting(BinaryCachedRestaurantsCodec.NAME);
+  }
+
+  @Test
+  public void binaryCodecRoundTripsExactly() throws IOException {
+    CachedRestaurants cachedRestaurants = new CachedRestaurants(1571402096000L, restaurants());
+
+    byte[] bytes = cachedRestaurantsCodecs.encode(cachedRestaurants);
+
+    assertEquals(BinaryCachedRestaurantsCodec.VERSION, bytes[0]);
+    assertEquals(cachedRestaurants, cachedRestaurantsCodecs.decode(bytes));
+  }
+
+  @Test
+  public void binaryCodecIsSmallerThanJson() throws IOException {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      restaurants.add(new Restaurant(null, "" + i, "Restaurant " + i, "Hsr Layout",
+          "www.google.com", 12.9 + i * 1e-4, 77.6 + i * 1e-4, "18:00", "23:00",
+          new ArrayList<>(Arrays.asList("Tamil", "South Indian"))));
+    }
+    CachedRestaurants cachedRestaurants = new CachedRestaurants(0, restaurants);
+
+    int binarySize = binaryCodec.encode(cachedRestaurants).length;
+    int jsonSize = jsonCodec.encode(cachedRestaurants).length;
+
+    assertTrue(binarySize * 3 < jsonSize, binarySize + " vs " + jsonSize);
+  }
+
+  @Test
+  public void valuesOfOtherCodecsStayReadable() throws IOException {
+    List<Restaurant> restaurants = restaurants();
+    // The id is not part of the JSON form.
+    restaurants.forEach(restaurant -> restaurant.setId(null));
+    CachedRestaurants cachedRestaurants = new CachedRestaurants(42, restaurants);
+    byte[] json = codecsWriting(JsonCachedRestaurantsCodec.NAME).encode(cachedRestaurants);
+    byte[] legacyJson = new ObjectMapper().writeValueAsBytes(cachedRestaurants);
+
+    assertEquals(JsonCachedRestaurantsCodec.VERSION, json[0]);
+    assertEquals(cachedRestaurants, cachedRestaurantsCodecs.decode(json));
+    assertEquals(cachedRestaurants, cachedRestaurantsCodecs.decode(legacyJson));
+  }
+
+  @Test
+  public void malformedValuesAreRejected() throws IOException {
+    byte[] bytes = cachedRestaurantsCodecs.encode(new CachedRestaurants(42, restaurants()));
+
+    assertThrows(IOException.class, () -> cachedRestaurantsCodecs.decode(new byte[0]));
+    assertThrows(IOException.class, () -> cachedRestaurantsCodecs.decode(new byte[] {99}));
+    assertThrows(IOException.class,
+        () -> cachedRestaurantsCodecs.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+    byte[] hugeCount = {BinaryCachedRestaurantsCodec.VERSION, 0, (byte) 0xFF, (byte) 0xFF,
+        (byte) 0xFF, 0x7F};
+    assertThrows(IOException.class, () -> cachedRestaurantsCodecs.decode(hugeCount));
+  }
+
+  @Test
+  public void emptyAndNullListsRoundTrip() throws IOException {
+    CachedRestaurants empty = new CachedRestaurants(-1, Collections.emptyList());
+    CachedRestaurants absent = new CachedRestaurants(0, null);
+
+    assertEquals(empty, binaryCodec.decode(binaryCodec.encode(empty), 0));
+    assertEquals(absent, binaryCodec.decode(binaryCodec.encode(absent), 0));
+    assertArrayEquals(binaryCodec.encode(empty), binaryCodec.encode(empty));
+  }
+
+  private CachedRestaurantsCodecs codecsWriting(String codecName) {
+    CachedRestaurantsCodecs codecs = new CachedRestaurantsCodecs();
+    ReflectionTestUtils.setField(codecs, "codecName", codecName);
+    ReflectionTestUtils.setField(codecs, "codecs", Arrays.asList(binaryCodec, jsonCodec));
+    ReflectionTestUtils.setField(codecs, "jsonCodec", jsonCodec);
+    codecs.initCodecs();
+    return codecs;
+  }
+
+  private static List<Restaurant> restaurants() {
+    return Arrays.asList(
+        new Restaurant("5c9", "10", "A2B", "Hsr Layout", "www.google.com", 20.027, 30.0,
+            "18:00", "23:00", new ArrayList<>(Arrays.asList("Tamil", "South Indian"))),
+        new Restaurant(null, "11", "Café Noir", "Hsr Layout", null, 20.02690000000001,
+            -179.99999991, "08:00", "23:00", new ArrayList<>(Arrays.asList("Tamil", null))),
+        new Restaurant(null, "12", null, null, null, null, Math.PI, null, null, null));
+  }
+}
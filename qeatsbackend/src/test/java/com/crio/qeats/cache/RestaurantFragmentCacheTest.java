@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RestaurantFragmentCacheTest {
+
+  private final ObjectMapper objectMapper = spy(new ObjectMapper());
+
+  private RestaurantFragmentCache restaurantFragmentCache;
+
+  @BeforeEach
+  void setup() {
+    restaurantFragmentCache = new RestaurantFragmentCache();
+    ReflectionTestUtils.setField(restaurantFragmentCache, "maximumSize", 100L);
+    ReflectionTestUtils.setField(restaurantFragmentCache, "objectMapper", objectMapper);
+    ReflectionTestUtils.setField(restaurantFragmentCache, "meterRegistry",
+        new SimpleMeterRegistry());
+    restaurantFragmentCache.initCache();
+  }
+
+  @Test
+  public void responsesAreWrittenLikeJacksonWritesThem() throws IOException {
+    GetRestaurantsResponse getRestaurantsResponse = new GetRestaurantsResponse(
+        Arrays.asList(restaurant("10", "A2B"), restaurant("11", "Café \"Udupi\"")));
+    assertJson(getRestaurantsResponse);
+
+    getRestaurantsResponse.setPartial(true);
+    getRestaurantsResponse.setCorrectedSearchFor("udupi");
+    assertJson(getRestaurantsResponse);
+
+    assertJson(new GetRestaurantsResponse(new ArrayList<>()));
+    assertJson(new GetRestaurantsResponse());
+  }
+
+  @Test
+  public void restaurantsAreOnlySerializedAgainOnceChanged() throws IOException {
+    Restaurant restaurant = restaurant("10", "A2B");
+    GetRestaurantsResponse getRestaurantsResponse =
+        new GetRestaurantsResponse(Arrays.asList(restaurant));
+
+    restaurantFragmentCache.write(getRestaurantsResponse);
+    restaurantFragmentCache.write(new GetRestaurantsResponse(
+        Arrays.asList(restaurant("10", "A2B"))));
+    verify(objectMapper, times(1)).writeValueAsBytes(any(Restaurant.class));
+
+    restaurant.setName("A2B Express");
+    assertJson(getRestaurantsResponse);
+    verify(objectMapper, times(2)).writeValueAsBytes(any(Restaurant.class));
+  }
+
+  @Test
+  public void savedRestaurantsAreDropped() throws IOException {
+    GetRestaurantsResponse getRestaurantsResponse =
+        new GetRestaurantsResponse(Arrays.asList(restaurant("10", "A2B")));
+    restaurantFragmentCache.write(getRestaurantsResponse);
+
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId("10");
+    restaurantFragmentCache.onAfterSave(
+        new AfterSaveEvent<>(restaurantEntity, null, "restaurants"));
+    restaurantFragmentCache.write(getRestaurantsResponse);
+
+    verify(objectMapper, times(2)).writeValueAsBytes(any(Restaurant.class));
+  }
+
+  @Test
+  public void restaurantsAreWrittenWithTheSelectedFieldsOnly() throws IOException {
+    GetRestaurantsResponse getRestaurantsResponse = new GetRestaurantsResponse(
+        Arrays.asList(restaurant("10", "A2B")));
+    double distance = Math.round(
+        GeoUtils.findDistanceInKm(20.0, 30.0, 20.027, 30.0) * 1000) / 1000.0;
+
+    assertEquals("{\"restaurants\":[{\"restaurantId\":\"10\",\"name\":\"A2B\","
+            + "\"imageUrl\":\"www.google.com\",\"distance\":" + distance + "}]}",
+        new String(restaurantFragmentCache.write(getRestaurantsResponse,
+            RestaurantFields.parse("distance, imageUrl,name,restaurantId"), 20.0, 30.0),
+            StandardCharsets.UTF_8));
+    assertEquals(new ObjectMapper().writeValueAsString(getRestaurantsResponse),
+        new String(restaurantFragmentCache.write(getRestaurantsResponse,
+            RestaurantFields.parse(" "), 20.0, 30.0), StandardCharsets.UTF_8));
+  }
+
+  private void assertJson(GetRestaurantsResponse getRestaurantsResponse) throws IOException {
+    assertEquals(new ObjectMapper().writeValueAsString(getRestaurantsResponse),
+        new String(restaurantFragmentCache.write(getRestaurantsResponse),
+            StandardCharsets.UTF_8));
+  }
+
+  private static Restaurant restaurant(String restaurantId, String name) {
+    return new Restaurant("5c" + restaurantId, restaurantId, name, "Hsr Layout",
+        "www.google.com", 20.027, 30.0, "18:00", "23:00",
+        new ArrayList<>(Arrays.asList("Tamil", "South Indian")));
+  }
+}
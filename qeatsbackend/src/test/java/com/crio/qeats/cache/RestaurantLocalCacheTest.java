@@ -0,0 +1,73 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RestaurantLocalCacheTest {
+
+  private MeterRegistry meterRegistry;
+  private RestaurantLocalCache restaurantLocalCache;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    restaurantLocalCache = new RestaurantLocalCache();
+    ReflectionTestUtils.setField(restaurantLocalCache, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(restaurantLocalCache, "maximumSize", 2L);
+    ReflectionTestUtils.setField(restaurantLocalCache, "expireAfterWriteInSeconds", 60L);
+  }
+
+  @Test
+  public void returnsOnlyCachedCellsAndRecordsStats() {
+    restaurantLocalCache.initCache();
+    List<Restaurant> restaurants = Collections.singletonList(new Restaurant());
+    restaurantLocalCache.put("tey7c", restaurants);
+
+    Map<String, List<Restaurant>> present =
+        restaurantLocalCache.getAllPresent(Arrays.asList("tey7c", "tey7f"));
+
+    assertEquals(1, present.size());
+    assertEquals(restaurants, present.get("tey7c"));
+    assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter()
+        .count());
+    assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter()
+        .count());
+  }
+
+  @Test
+  public void evictsBeyondMaximumSize() {
+    restaurantLocalCache.initCache();
+    restaurantLocalCache.put("a", Collections.emptyList());
+    restaurantLocalCache.put("b", Collections.emptyList());
+    restaurantLocalCache.put("c", Collections.emptyList());
+
+    assertEquals(2, restaurantLocalCache.getAllPresent(Arrays.asList("a", "b", "c")).size());
+    assertEquals(1.0, meterRegistry.get("cache.evictions").functionCounter().count());
+  }
+
+  @Test
+  public void rejectsExpiryBeyondRedisExpiry() {
+    ReflectionTestUtils.setField(restaurantLocalCache, "expireAfterWriteInSeconds",
+        (long) GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS);
+
+    assertThrows(IllegalArgumentException.class, restaurantLocalCache::initCache);
+  }
+}
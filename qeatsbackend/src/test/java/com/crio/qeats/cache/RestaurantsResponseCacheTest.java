@@ -0,0 +1,75 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RestaurantsResponseCacheTest {
+
+  private final AtomicInteger builds = new AtomicInteger();
+  private RestaurantsResponseCache restaurantsResponseCache;
+
+  @BeforeEach
+  void setup() {
+    restaurantsResponseCache = new RestaurantsResponseCache();
+    ReflectionTestUtils.setField(restaurantsResponseCache, "meterRegistry",
+        new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(restaurantsResponseCache, "maximumBytes", 1024L);
+    restaurantsResponseCache.initCache();
+  }
+
+  @Test
+  public void bodyIsReusedWithinTheSameMinuteOnly() throws IOException {
+    byte[] first = get(20.0, 30.0, 3.0, LocalTime.of(18, 1, 5));
+    byte[] second = get(20.0, 30.0, 3.0, LocalTime.of(18, 1, 59));
+    get(20.0, 30.0, 3.0, LocalTime.of(18, 2, 1));
+
+    assertArrayEquals(first, second);
+    assertEquals(2, builds.get());
+  }
+
+  @Test
+  public void locationAndRadiusArePartOfTheKey() throws IOException {
+    get(20.0, 30.0, 3.0, LocalTime.of(18, 1, 5));
+    get(20.0, 30.000001, 3.0, LocalTime.of(18, 1, 5));
+    get(20.0, 30.0, 5.0, LocalTime.of(18, 1, 5));
+
+    assertEquals(3, builds.get());
+  }
+
+  @Test
+  public void firstInstantOfAMinuteIsNotCached() throws IOException {
+    get(20.0, 30.0, 3.0, LocalTime.of(18, 0));
+    get(20.0, 30.0, 3.0, LocalTime.of(18, 0, 1));
+
+    assertEquals(2, builds.get());
+  }
+
+  @Test
+  public void loaderFailuresArePropagated() {
+    assertThrows(IOException.class, () -> restaurantsResponseCache.get(20.0, 30.0, 3.0,
+        LocalTime.of(18, 1, 5), () -> {
+          throw new IOException("serialization");
+        }));
+  }
+
+  private byte[] get(double latitude, double longitude, double radius, LocalTime time)
+      throws IOException {
+    return restaurantsResponseCache.get(latitude, longitude, radius, time,
+        () -> ("{\"build\":" + builds.incrementAndGet() + "}").getBytes());
+  }
+}
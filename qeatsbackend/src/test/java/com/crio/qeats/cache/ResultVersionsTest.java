@@ -0,0 +1,191 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.controller.RestaurantController;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@AutoConfigureMockMvc
+@DirtiesContext
+@ActiveProfiles("test")
+class ResultVersionsTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  private static final String RESTAURANTS_API_URI =
+      RestaurantController.RESTAURANT_API_ENDPOINT + RestaurantController.RESTAURANTS_API;
+
+  @Autowired
+  private ResultVersions resultVersions;
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  private List<RestaurantEntity> restaurantEntities;
+
+  @BeforeEach
+  void setup() throws IOException {
+    restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+    List<MenuEntity> menuEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json"),
+        new TypeReference<List<MenuEntity>>() {
+        });
+    for (MenuEntity menuEntity : menuEntities) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+    resultVersions.refreshCatalog();
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  public void versionsOnlyChangeWhenOpenRestaurantsMayChange() {
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+
+    // The fixtures open at 18:00 and close at 23:00.
+    String eTag = resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 30, 1), 5.0);
+    assertNotNull(eTag);
+    assertEquals(eTag, resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(22, 59, 59),
+        5.0));
+    assertNotEquals(eTag, resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(17, 59, 59),
+        5.0));
+    assertNotEquals(eTag, resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(23, 0, 1),
+        5.0));
+    assertNotEquals(eTag, resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 30, 1),
+        3.0));
+    assertNull(resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 0), 5.0));
+
+    getRestaurantsRequest.setSearchFor("A2B");
+    assertNotEquals(eTag, resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 30, 1),
+        5.0));
+  }
+
+  @Test
+  public void versionsChangeWithTheCatalog() {
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    String eTag = resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 30, 1), 5.0);
+
+    RestaurantEntity restaurantEntity = restaurantEntities.get(0);
+    restaurantEntity.setName("A2B Express");
+    mongoTemplate.save(restaurantEntity, "restaurants");
+
+    resultVersions.refreshCatalog();
+    String changedETag =
+        resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 30, 1), 5.0);
+    assertNotNull(changedETag);
+    assertNotEquals(eTag, changedETag);
+  }
+
+  @Test
+  public void versionsChangeWhenValuesAreSwappedBetweenRestaurants() {
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    String eTag = resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 30, 1), 5.0);
+
+    RestaurantEntity first = restaurantEntities.get(3);
+    RestaurantEntity second = restaurantEntities.get(4);
+    String name = first.getName();
+    first.setName(second.getName());
+    second.setName(name);
+    mongoTemplate.save(first, "restaurants");
+    mongoTemplate.save(second, "restaurants");
+
+    resultVersions.refreshCatalog();
+    String changedETag =
+        resultVersions.eTagOf(getRestaurantsRequest, LocalTime.of(18, 30, 1), 5.0);
+    assertNotNull(changedETag);
+    assertNotEquals(eTag, changedETag);
+  }
+
+  @Test
+  public void ifNoneMatchListsAreComparedWeakly() {
+    assertTrue(ResultVersions.matches("\"a\"", "\"a\""));
+    assertTrue(ResultVersions.matches("\"b\", W/\"a\"", "\"a\""));
+    assertTrue(ResultVersions.matches("*", "\"a\""));
+    assertFalse(ResultVersions.matches("\"b\"", "\"a\""));
+    assertFalse(ResultVersions.matches(null, "\"a\""));
+    assertFalse(ResultVersions.matches("*", null));
+  }
+
+  @Test
+  public void cachesAreNotToldToKeepResultsPastTheNextOpeningTime() {
+    assertEquals("max-age=5, must-revalidate, public",
+        resultVersions.cacheControlOf(LocalTime.of(17, 0)).getHeaderValue());
+    assertEquals("max-age=2, must-revalidate, public",
+        resultVersions.cacheControlOf(LocalTime.of(17, 59, 58)).getHeaderValue());
+    assertEquals("max-age=3, must-revalidate, public",
+        resultVersions.cacheControlOf(LocalTime.of(22, 59, 57)).getHeaderValue());
+  }
+
+  @Test
+  public void unchangedResultsAreNotSentAgain() throws Exception {
+    MockHttpServletResponse response = mvc.perform(get(RESTAURANTS_API_URI)
+        .param("latitude", "20.0").param("longitude", "30.0")).andReturn().getResponse();
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    String eTag = response.getHeader(HttpHeaders.ETAG);
+    assertNotNull(eTag);
+    assertNotNull(response.getHeader(HttpHeaders.CACHE_CONTROL));
+
+    response = mvc.perform(get(RESTAURANTS_API_URI)
+        .param("latitude", "20.0").param("longitude", "30.0")
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)).andReturn().getResponse();
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+    assertEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+    assertEquals(0, response.getContentLength());
+  }
+}
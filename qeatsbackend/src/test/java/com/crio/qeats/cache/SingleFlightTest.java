@@ -0,0 +1,109 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+  @Test
+  public void concurrentCallersShareOneLoad() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try {
+      Future<Map<String, String>> leader = executorService.submit(() ->
+          singleFlight.load(Collections.singleton("a"), keys -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return valuesOf(keys);
+          }));
+      loading.await(5, TimeUnit.SECONDS);
+
+      List<Future<Map<String, String>>> followers = new ArrayList<>();
+      for (int i = 0; i < 7; i++) {
+        followers.add(executorService.submit(() ->
+            singleFlight.load(Collections.singleton("a"), keys -> {
+              loads.incrementAndGet();
+              return valuesOf(keys);
+            })));
+      }
+      // Followers are parked on the leader's load.
+      Thread.sleep(200);
+      release.countDown();
+
+      assertEquals("value-a", leader.get(5, TimeUnit.SECONDS).get("a"));
+      for (Future<Map<String, String>> follower : followers) {
+        assertEquals("value-a", follower.get(5, TimeUnit.SECONDS).get("a"));
+      }
+      assertEquals(1, loads.get());
+      assertEquals(0, singleFlight.inFlightCount());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void batchOnlyLoadsUnclaimedKeys() {
+    Set<String> loadedKeys = new HashSet<>();
+    Map<String, String> values = singleFlight.load(new HashSet<>(Arrays.asList("a", "b")),
+        keys -> {
+          loadedKeys.addAll(keys);
+          return valuesOf(keys);
+        });
+
+    assertEquals(new HashSet<>(Arrays.asList("a", "b")), loadedKeys);
+    assertEquals("value-b", values.get("b"));
+  }
+
+  @Test
+  public void failedLoadIsNotCached() {
+    assertThrows(IllegalStateException.class, () ->
+        singleFlight.load(Collections.singleton("a"), keys -> {
+          throw new IllegalStateException("down");
+        }));
+
+    assertEquals(0, singleFlight.inFlightCount());
+    assertEquals("value-a",
+        singleFlight.load(Collections.singleton("a"), this::valuesOf).get("a"));
+  }
+
+  private Map<String, String> valuesOf(Set<String> keys) {
+    Map<String, String> values = new HashMap<>();
+    keys.forEach(key -> values.put(key, "value-" + key));
+    return values;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
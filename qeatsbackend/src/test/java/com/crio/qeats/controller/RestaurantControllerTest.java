@@ -15,10 +15,16 @@ import static com.crio.qeats.controller.RestaurantController.MENU_API;
 import static com.crio.qeats.controller.RestaurantController.POST_ORDER_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANTS_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANT_API_ENDPOINT;
+import static com.crio.qeats.controller.RestaurantController.SUGGEST_API;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -30,8 +36,15 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.RestaurantFragmentCache;
+import com.crio.qeats.cache.RestaurantsResponseCache;
+import com.crio.qeats.cache.ResultVersions;
+import com.crio.qeats.dto.Suggestion;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.repositoryservices.SearchSource;
 import com.crio.qeats.services.RestaurantService;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -39,18 +52,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.net.URI;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.annotation.DirtiesContext;
@@ -70,6 +90,7 @@ public class RestaurantControllerTest {
   //FIXME: REVIEW the api names
   private static final String RESTAURANT_API_URI = RESTAURANT_API_ENDPOINT + RESTAURANTS_API;
   private static final String MENU_API_URI = RESTAURANT_API_ENDPOINT + MENU_API;
+  private static final String SUGGEST_API_URI = RESTAURANT_API_ENDPOINT + SUGGEST_API;
   private static final String CART_API_URI = RESTAURANT_API_ENDPOINT + CART_API;
   private static final String ADD_REMOVE_CART_API_URI = RESTAURANT_API_ENDPOINT + CART_ITEM_API;
   private static final String CLEAR_CART_API_URI = RESTAURANT_API_ENDPOINT + CART_CLEAR_API;
@@ -84,6 +105,19 @@ public class RestaurantControllerTest {
   @MockBean
   private RestaurantService restaurantService;
 
+  // The application's caches, which response bodies are written from.
+  @Autowired
+  @Spy
+  private RestaurantFragmentCache restaurantFragmentCache;
+
+  @Autowired
+  @Spy
+  private RestaurantsResponseCache restaurantsResponseCache;
+
+  // Hands out no version unless told to.
+  @Mock
+  private ResultVersions resultVersions;
+
 
   @InjectMocks
   private RestaurantController restaurantController;
@@ -163,6 +197,23 @@ public class RestaurantControllerTest {
     assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
   }
 
+  @Test
+  public void unknownFieldsResultInBadHttpRequest() throws Exception {
+    // mocks not required, since validation will fail before that.
+    URI uri = UriComponentsBuilder
+        .fromPath(RESTAURANT_API_URI)
+        .queryParam("latitude", "10")
+        .queryParam("longitude", "20")
+        .queryParam("fields", "name,rating")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+  }
+
   @Test
   public void incorrectlySpelledLongitudeParamResultsInBadHttpRequest() throws Exception {
     // mocks not required, since validation will fail before that.
@@ -253,6 +304,172 @@ public class RestaurantControllerTest {
 
 
 
+  @Test
+  public void unchangedResultsAreConfirmedWithoutLookup() throws Exception {
+    givenVersion("\"v1\"");
+
+    MockHttpServletResponse response = mvc.perform(get(RESTAURANT_API_URI)
+        .param("latitude", "20.0").param("longitude", "30.0")
+        .header(HttpHeaders.IF_NONE_MATCH, "\"v0\", \"v1\"")
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+    assertEquals("\"v1\"", response.getHeader(HttpHeaders.ETAG));
+    assertEquals("max-age=5, public", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    assertEquals(0, response.getContentLength());
+    verify(restaurantService, never()).findAllRestaurantsCloseBy(
+        any(GetRestaurantsRequest.class), any(LocalTime.class));
+  }
+
+  @Test
+  public void changedResultsAreSentWithTheirVersion() throws Exception {
+    givenVersion("\"v1\"");
+    when(restaurantService.findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenReturn(loadSampleResponseList());
+
+    MockHttpServletResponse response = mvc.perform(get(RESTAURANT_API_URI)
+        .param("latitude", "22.0").param("longitude", "32.0")
+        .header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals("\"v1\"", response.getHeader(HttpHeaders.ETAG));
+    assertEquals("max-age=5, public", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    assertTrue(response.getContentAsString().contains("Junior Kuppanna"));
+  }
+
+  @Test
+  public void nearbyRestaurantsAreServedFromTheResponseCache() throws Exception {
+    GetRestaurantsResponse getRestaurantsResponse = loadSampleResponseList();
+    when(restaurantService.findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenReturn(getRestaurantsResponse);
+
+    URI uri = UriComponentsBuilder
+        .fromPath(RESTAURANT_API_URI)
+        .queryParam("latitude", "21.0")
+        .queryParam("longitude", "31.0")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals(new String(restaurantFragmentCache.write(getRestaurantsResponse), "UTF-8"),
+        response.getContentAsString());
+    verify(restaurantsResponseCache, times(1))
+        .get(eq(21.0), eq(31.0), anyDouble(), any(LocalTime.class), any());
+  }
+
+  @Test
+  public void attributeFilteredRestaurantsAreNotCached() throws Exception {
+    when(restaurantService.findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenReturn(loadSampleResponseList());
+
+    URI uri = UriComponentsBuilder
+        .fromPath(RESTAURANT_API_URI)
+        .queryParam("latitude", "21.0")
+        .queryParam("longitude", "31.0")
+        .queryParam("attributes", "Tamil")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    verify(restaurantsResponseCache, never())
+        .get(anyDouble(), anyDouble(), anyDouble(), any(LocalTime.class), any());
+  }
+
+  @Test
+  public void nearbyRestaurantsAreReturnedWithTheSelectedFields() throws Exception {
+    when(restaurantService.findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenReturn(loadSampleResponseList());
+
+    URI uri = UriComponentsBuilder
+        .fromPath(RESTAURANT_API_URI)
+        .queryParam("latitude", "20.0")
+        .queryParam("longitude", "30.0")
+        .queryParam("fields", "restaurantId,name")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals("{\"restaurants\":[{\"restaurantId\":\"abcdc864835e31495d621234\","
+        + "\"name\":\"Junior Kuppanna\"}]}", response.getContentAsString());
+  }
+
+  @Test
+  public void partialSearchResultsAreFlaggedAndNotVersioned() throws Exception {
+    givenVersion("\"v1\"");
+    GetRestaurantsResponse getRestaurantsResponse = loadSampleResponseList();
+    getRestaurantsResponse.setPartial(true);
+    when(restaurantService.findRestaurantsBySearchQueryMt(any(GetRestaurantsRequest.class),
+        any(LocalTime.class))).thenReturn(getRestaurantsResponse);
+
+    URI uri = UriComponentsBuilder
+        .fromPath(RESTAURANT_API_URI)
+        .queryParam("latitude", "20.0")
+        .queryParam("longitude", "30.0")
+        .queryParam("searchFor", "tamil")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals(new String(restaurantFragmentCache.write(getRestaurantsResponse), "UTF-8"),
+        response.getContentAsString());
+    assertTrue(response.getContentAsString().endsWith(",\"partial\":true}"));
+    assertNull(response.getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void suggestionsAreReturnedForThePrefix() throws Exception {
+    when(restaurantService.findSuggestions(any(GetSuggestionsRequest.class)))
+        .thenReturn(new GetSuggestionsResponse(Collections.singletonList(
+            new Suggestion("Udupi", SearchSource.ATTRIBUTES, 12))));
+
+    URI uri = UriComponentsBuilder
+        .fromPath(SUGGEST_API_URI)
+        .queryParam("prefix", "udu")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals("{\"suggestions\":[{\"text\":\"Udupi\",\"type\":\"ATTRIBUTES\","
+        + "\"weight\":12}]}", response.getContentAsString());
+
+    ArgumentCaptor<GetSuggestionsRequest> argumentCaptor =
+        ArgumentCaptor.forClass(GetSuggestionsRequest.class);
+    verify(restaurantService, times(1)).findSuggestions(argumentCaptor.capture());
+    assertEquals("udu", argumentCaptor.getValue().getPrefix());
+  }
+
+  @Test
+  public void missingPrefixResultsInBadHttpRequest() throws Exception {
+    MockHttpServletResponse response = mvc.perform(
+        get(SUGGEST_API_URI).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+  }
+
+  private void givenVersion(String eTag) {
+    when(resultVersions.eTagOf(any(GetRestaurantsRequest.class), any(LocalTime.class),
+        anyDouble())).thenReturn(eTag);
+    when(resultVersions.cacheControlOf(any(LocalTime.class)))
+        .thenReturn(CacheControl.maxAge(5, TimeUnit.SECONDS).cachePublic());
+  }
+
   private GetRestaurantsResponse loadSampleResponseList() throws IOException {
     String fixture =
         FixtureHelpers.fixture(FIXTURES + "/list_restaurant_response.json");
@@ -0,0 +1,64 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryCorrectorTest {
+
+  private QueryCorrector queryCorrector;
+
+  @BeforeEach
+  void setup() {
+    Map<String, Long> frequencies = new HashMap<>();
+    frequencies.put("paneer", 4L);
+    frequencies.put("tikka", 3L);
+    frequencies.put("briyani", 6L);
+    frequencies.put("biryani", 2L);
+    frequencies.put("dosa", 5L);
+    frequencies.put("udupi", 1L);
+    queryCorrector = new QueryCorrector(frequencies);
+  }
+
+  @Test
+  public void theClosestAndThenMostFrequentWordIsFound() {
+    Map<String, Long> frequencies = new HashMap<>();
+    frequencies.put("idly", 1L);
+    frequencies.put("idli", 3L);
+    frequencies.put("idiyappam", 9L);
+    LevenshteinTrie levenshteinTrie = LevenshteinTrie.build(frequencies);
+
+    assertEquals(3, levenshteinTrie.size());
+    assertEquals("idli", levenshteinTrie.findClosest("idlu", 2));
+    assertEquals("idly", levenshteinTrie.findClosest("idlyy", 2));
+    assertEquals("idiyappam", levenshteinTrie.findClosest("idiappam", 2));
+    assertNull(levenshteinTrie.findClosest("vada", 2));
+  }
+
+  @Test
+  public void unknownTokensAreReplacedByTheirClosestWord() {
+    assertEquals("paneer tikka", queryCorrector.correct("Panner Tika", 2));
+    // Both are one edit away, the more frequent spelling wins.
+    assertEquals("briyani", queryCorrector.correct("biriyani", 2));
+    assertEquals("udupi dosa", queryCorrector.correct("udupi dossa", 2));
+  }
+
+  @Test
+  public void shortTokensAndKnownQueriesAreLeftAlone() {
+    assertNull(queryCorrector.correct("dosa", 2));
+    assertNull(queryCorrector.correct("dsa", 2));
+    assertNull(queryCorrector.correct("pizza", 2));
+    assertNull(queryCorrector.correct("panner", 0));
+    assertNull(QueryCorrector.EMPTY.correct("panner", 2));
+  }
+}
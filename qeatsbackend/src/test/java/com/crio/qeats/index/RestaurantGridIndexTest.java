@@ -0,0 +1,107 @@
+
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class RestaurantGridIndexTest {
+
+  @Test
+  public void candidatesInsideRadiusMatchFullScan() {
+    Random random = new Random(42);
+    List<RestaurantEntity> restaurants = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      restaurants.add(restaurantAt(String.valueOf(i),
+          20 + random.nextDouble() * 0.5, 30 + random.nextDouble() * 0.5));
+    }
+    RestaurantGridIndex index = RestaurantGridIndex.build(restaurants, 0.05);
+
+    for (int i = 0; i < 200; i++) {
+      double latitude = 20 + random.nextDouble() * 0.5;
+      double longitude = 30 + random.nextDouble() * 0.5;
+      double radius = 1 + random.nextDouble() * 5;
+
+      assertEquals(withinRadius(restaurants, latitude, longitude, radius),
+          withinRadius(index.findCandidates(latitude, longitude, radius),
+              latitude, longitude, radius));
+    }
+  }
+
+  @Test
+  public void candidatesWrapAroundTheAntimeridian() {
+    List<RestaurantEntity> restaurants = new ArrayList<>();
+    restaurants.add(restaurantAt("east", 10.0, 179.99));
+    restaurants.add(restaurantAt("west", 10.0, -179.99));
+    restaurants.add(restaurantAt("far", 10.0, 170.0));
+    RestaurantGridIndex index = RestaurantGridIndex.build(restaurants, 0.05);
+
+    assertEquals(ids(restaurants.subList(0, 2)),
+        withinRadius(index.findCandidates(10.0, 180.0, 5.0), 10.0, 180.0, 5.0));
+  }
+
+  @Test
+  public void candidatesAroundAPoleIncludeAllLongitudes() {
+    List<RestaurantEntity> restaurants = new ArrayList<>();
+    restaurants.add(restaurantAt("a", 89.99, 0.0));
+    restaurants.add(restaurantAt("b", 89.99, 90.0));
+    restaurants.add(restaurantAt("c", 89.99, -170.0));
+    RestaurantGridIndex index = RestaurantGridIndex.build(restaurants, 0.05);
+
+    assertEquals(ids(restaurants),
+        withinRadius(index.findCandidates(89.995, 45.0, 5.0), 89.995, 45.0, 5.0));
+  }
+
+  @Test
+  public void candidatesKeepIndexingOrder() {
+    List<RestaurantEntity> restaurants = new ArrayList<>();
+    restaurants.add(restaurantAt("11", 20.0269, 30.0));
+    restaurants.add(restaurantAt("10", 19.98, 29.98));
+    restaurants.add(restaurantAt("12", 20.015, 30.015));
+    RestaurantGridIndex index = RestaurantGridIndex.build(restaurants, 0.01);
+
+    assertEquals(ids(restaurants), ids(index.findCandidates(20.0, 30.0, 5.0)));
+  }
+
+  @Test
+  public void invalidCellSizeIsRejected() {
+    assertThrows(IllegalArgumentException.class,
+        () -> RestaurantGridIndex.build(new ArrayList<>(), 0));
+  }
+
+  private List<String> withinRadius(List<RestaurantEntity> restaurants, double latitude,
+      double longitude, double radius) {
+    return ids(restaurants.stream()
+        .filter(r -> GeoUtils.findDistanceInKm(latitude, longitude,
+            r.getLatitude(), r.getLongitude()) < radius)
+        .collect(Collectors.toList()));
+  }
+
+  private List<String> ids(List<RestaurantEntity> restaurants) {
+    return restaurants.stream().map(RestaurantEntity::getRestaurantId)
+        .collect(Collectors.toList());
+  }
+
+  private RestaurantEntity restaurantAt(String restaurantId, double latitude, double longitude) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(longitude);
+    restaurantEntity.setOpensAt("00:00");
+    restaurantEntity.setClosesAt("23:59");
+    return restaurantEntity;
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositoryservices.SearchSource;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RestaurantSearchIndexTest {
+
+  private RestaurantSearchIndex index;
+
+  @BeforeEach
+  void setup() {
+    index = RestaurantSearchIndex.build(
+        Arrays.asList(
+            restaurant("10", "A2B", "Tamil", "South Indian"),
+            restaurant("11", "Café Udupi", "Udupi", "South Indian"),
+            restaurant("12", "Udupi Bhavan", "North Indian")),
+        Arrays.asList(
+            menu("m11", "11", item("Masala Dosa", "Spicy"), item("Chicken Biryani", "Mughal")),
+            menu("m13", "13", item("Masala Dosa"))));
+  }
+
+  @Test
+  public void tokenizationFoldsCaseAndAccents() {
+    assertEquals(Arrays.asList("cafe", "udupi", "s", "best"),
+        SearchTokens.tokenize("  CAFÉ-udupi's BEST, udupi"));
+    assertEquals(Collections.emptyList(), SearchTokens.tokenize("  ,. "));
+  }
+
+  @Test
+  public void allQueryTokensMustMatchOneValue() {
+    assertEquals(Arrays.asList("11", "12"), find(SearchSource.NAME, "UDUPI"));
+    assertEquals(Arrays.asList("11"), find(SearchSource.NAME, "udupi cafe"));
+    assertEquals(Arrays.asList("10", "11"), find(SearchSource.ATTRIBUTES, "south indian"));
+    // "Tamil" and "South Indian" are two different attributes.
+    assertEquals(Collections.emptyList(), find(SearchSource.ATTRIBUTES, "tamil indian"));
+    assertEquals(Collections.emptyList(), find(SearchSource.ITEM_NAME, "masala biryani"));
+    assertEquals(Arrays.asList("11"), find(SearchSource.ITEM_ATTRIBUTES, "spicy"));
+  }
+
+  @Test
+  public void exactValueMatchesComeFirst() {
+    index.putRestaurant(restaurant("13", "udupi"));
+    index.putMenu(menu("m12", "12", item("Dosa")));
+
+    assertEquals(Arrays.asList("13", "11", "12"), find(SearchSource.NAME, "Udupi"));
+    assertEquals(Arrays.asList("12", "11", "13"), find(SearchSource.ITEM_NAME, "dosa"));
+  }
+
+  @Test
+  public void substringsMatchInsideAndAcrossTokens() {
+    assertEquals(Arrays.asList("11", "12"), find(SearchSource.NAME, "dup"));
+    assertEquals(Arrays.asList("12"), find(SearchSource.NAME, "PI  bha"));
+    assertEquals(Arrays.asList("11"), find(SearchSource.NAME, "é u"));
+    assertEquals(Arrays.asList("10"), find(SearchSource.NAME, "a2"));
+    assertEquals(Arrays.asList("10", "11", "12"), find(SearchSource.ATTRIBUTES, "ndian"));
+    assertEquals(Arrays.asList("11"), find(SearchSource.ITEM_NAME, "ken bir"));
+    assertEquals(Collections.emptyList(), find(SearchSource.NAME, "upi c"));
+  }
+
+  @Test
+  public void compressedPostingsRoundTrip() {
+    int[] ordinals = {0, 1, 127, 128, 300, 16384, Integer.MAX_VALUE};
+    byte[] postings = CompressedPostings.encode(ordinals, ordinals.length);
+
+    assertArrayEquals(ordinals, CompressedPostings.decode(postings));
+    assertEquals(7, CompressedPostings.size(postings));
+    assertArrayEquals(new int[] {0, 1, 2, 127, 128, 16384, Integer.MAX_VALUE},
+        CompressedPostings.decode(CompressedPostings.remove(
+            CompressedPostings.insert(postings, 2), 300)));
+    assertEquals(0, CompressedPostings.size(CompressedPostings.EMPTY));
+  }
+
+  @Test
+  public void restaurantsWithoutDocumentAreNotReturned() {
+    assertEquals(Arrays.asList("11"), find(SearchSource.ITEM_NAME, "dosa"));
+    assertEquals(3, index.size());
+
+    index.putRestaurant(restaurant("13", "Dosa Point"));
+
+    assertEquals(Arrays.asList("11", "13"), find(SearchSource.ITEM_NAME, "dosa"));
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  public void documentsAreReplacedAndRemoved() {
+    index.putRestaurant(restaurant("12", "Udupi Grand", "North Indian"));
+    index.putMenu(menu("m11", "11", item("Chicken Biryani", "Mughal")));
+
+    assertEquals(Arrays.asList("12"), find(SearchSource.NAME, "grand"));
+    assertEquals(Collections.emptyList(), find(SearchSource.NAME, "bhavan"));
+    assertEquals(Collections.emptyList(), find(SearchSource.ITEM_ATTRIBUTES, "spicy"));
+
+    index.removeRestaurantDocument("doc11");
+    index.removeMenuDocument("m13");
+    index.putRestaurant(restaurant("13", "Dosa Point"));
+
+    assertEquals(Arrays.asList("12"), find(SearchSource.NAME, "udupi"));
+    assertEquals(Collections.emptyList(), find(SearchSource.ITEM_NAME, "dosa"));
+    assertEquals(3, index.size());
+  }
+
+  @Test
+  public void attributeFiltersCombineBitmaps() {
+    assertEquals(Arrays.asList("10", "11"), filter("SOUTH  INDIAN"));
+    assertEquals(Arrays.asList("11"), filter("south indian,spicy"));
+    assertEquals(Arrays.asList("11", "12"), filter("mughal|north indian"));
+    // Attributes are matched as whole phrases.
+    assertEquals(Collections.emptyList(), filter("indian"));
+    assertEquals(Arrays.asList("10", "11", "12"), filter(" , "));
+
+    index.putMenu(menu("m11", "11", item("Masala Dosa", "Sweet")));
+
+    assertEquals(Collections.emptyList(), filter("south indian,spicy"));
+    assertEquals(Arrays.asList("11"), filter("spicy|sweet"));
+  }
+
+  @Test
+  public void attributeFiltersOnlyKeepOpenRestaurantsNearBy() {
+    RestaurantEntity farAway = restaurant("10", "A2B", "Tamil", "South Indian");
+    farAway.setLatitude(20.1);
+    index.putRestaurant(farAway);
+    RestaurantEntity closed = restaurant("11", "Café Udupi", "Udupi", "South Indian");
+    closed.setOpensAt("21:00");
+    index.putRestaurant(closed);
+    RestaurantEntity acrossTheAntimeridian = restaurant("12", "Udupi Bhavan", "South Indian");
+    acrossTheAntimeridian.setLongitude(-179.99);
+    index.putRestaurant(acrossTheAntimeridian);
+
+    assertEquals(Collections.emptyList(), filter("south indian"));
+    assertEquals(Arrays.asList("12"), index.filter(AttributeFilter.parse("south indian"),
+        20.0, 179.99, LocalTime.of(20, 0), 5.0).stream()
+        .map(RestaurantEntity::getRestaurantId).collect(Collectors.toList()));
+  }
+
+  private List<String> filter(String attributes) {
+    return index.filter(AttributeFilter.parse(attributes), 20.0, 30.0, LocalTime.of(20, 0), 5.0)
+        .stream().map(RestaurantEntity::getRestaurantId).collect(Collectors.toList());
+  }
+
+  private List<String> find(SearchSource searchSource, String query) {
+    return index.find(searchSource, query).stream()
+        .map(RestaurantEntity::getRestaurantId).collect(Collectors.toList());
+  }
+
+  private static RestaurantEntity restaurant(String restaurantId, String name,
+      String... attributes) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setId("doc" + restaurantId);
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName(name);
+    restaurantEntity.setAttributes(new ArrayList<>(Arrays.asList(attributes)));
+    restaurantEntity.setLatitude(20.0);
+    restaurantEntity.setLongitude(30.0);
+    restaurantEntity.setOpensAt("18:00");
+    restaurantEntity.setClosesAt("23:00");
+    return restaurantEntity;
+  }
+
+  private static MenuEntity menu(String id, String restaurantId, Item... items) {
+    return new MenuEntity(id, restaurantId, new ArrayList<>(Arrays.asList(items)));
+  }
+
+  private static Item item(String name, String... attributes) {
+    return new Item(null, null, name, null, new ArrayList<>(Arrays.asList(attributes)), 100);
+  }
+}
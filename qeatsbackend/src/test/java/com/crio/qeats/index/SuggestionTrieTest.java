@@ -0,0 +1,84 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.repositoryservices.SearchSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SuggestionTrieTest {
+
+  private SuggestionTrie trie;
+
+  @BeforeEach
+  void setup() {
+    trie = SuggestionTrie.build(Arrays.asList(
+        new Suggestion("Udupi Bhavan", SearchSource.NAME, 2),
+        new Suggestion("Udupi", SearchSource.ATTRIBUTES, 7),
+        new Suggestion("Udupi", SearchSource.NAME, 1),
+        new Suggestion("Café Udupi", SearchSource.NAME, 3),
+        new Suggestion("Uttapam", SearchSource.ITEM_NAME, 5),
+        new Suggestion("  ", SearchSource.ITEM_NAME, 9)));
+  }
+
+  @Test
+  public void completionsAreListedByDecreasingWeight() {
+    assertEquals(Arrays.asList("Udupi:7", "Uttapam:5", "Udupi Bhavan:2", "Udupi:1"),
+        complete("u", 10));
+    assertEquals(Arrays.asList("Udupi:7", "Udupi Bhavan:2", "Udupi:1"), complete("UDUPI", 10));
+    assertEquals(Arrays.asList("Udupi Bhavan:2"), complete("udupi  b", 10));
+    assertEquals(Arrays.asList("Udupi:7", "Uttapam:5"), complete("u", 2));
+    assertEquals(5, trie.size());
+  }
+
+  @Test
+  public void prefixesAreNormalized() {
+    assertEquals(Arrays.asList("Café Udupi:3"), complete("CAFE", 10));
+    assertEquals(Arrays.asList("Café Udupi:3"), complete("café u", 10));
+  }
+
+  @Test
+  public void unknownAndBlankPrefixesHaveNoCompletions() {
+    assertEquals(Collections.emptyList(), complete("udupa", 10));
+    assertEquals(Collections.emptyList(), complete("  ", 10));
+    assertEquals(Collections.emptyList(), complete("u", 0));
+    assertEquals(Collections.emptyList(),
+        SuggestionTrie.EMPTY.complete("u", 10));
+  }
+
+  @Test
+  public void largeSubtreesAreNotVisitedInFull() {
+    List<Suggestion> suggestions = new ArrayList<>();
+    for (int i = 0; i < 100000; i++) {
+      suggestions.add(new Suggestion("dish " + i, SearchSource.ITEM_NAME, i));
+    }
+    SuggestionTrie largeTrie = SuggestionTrie.build(suggestions);
+
+    long start = System.nanoTime();
+    List<Suggestion> completions = largeTrie.complete("dish", 3);
+    long elapsedInMicros = (System.nanoTime() - start) / 1000;
+
+    assertEquals(Arrays.asList("dish 99999", "dish 99998", "dish 99997"),
+        completions.stream().map(Suggestion::getText).collect(Collectors.toList()));
+    assertTrue(elapsedInMicros < 50000, "took " + elapsedInMicros + "us");
+  }
+
+  private List<String> complete(String prefix, int maxSuggestions) {
+    return trie.complete(prefix, maxSuggestions).stream()
+        .map(suggestion -> suggestion.getText() + ":" + suggestion.getWeight())
+        .collect(Collectors.toList());
+  }
+}
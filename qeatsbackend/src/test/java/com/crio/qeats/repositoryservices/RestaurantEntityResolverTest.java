@@ -0,0 +1,155 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.services.RestaurantSearchFanOut;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class RestaurantEntityResolverTest {
+
+  private final RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+  private RestaurantEntityResolver restaurantEntityResolver;
+
+  @BeforeEach
+  void setup() {
+    // Answers with the known restaurants among the requested ids, in reverse order.
+    when(restaurantRepository.findRestaurantsByRestaurantIdIn(anyCollection()))
+        .thenAnswer(invocation -> {
+          Collection<String> ids = invocation.getArgument(0);
+          List<RestaurantEntity> found = ids.stream()
+              .filter(id -> !id.startsWith("missing"))
+              .map(RestaurantEntityResolverTest::restaurantEntity)
+              .collect(Collectors.toList());
+          Collections.reverse(found);
+          return found;
+        });
+
+    restaurantEntityResolver = new RestaurantEntityResolver();
+    ReflectionTestUtils.setField(restaurantEntityResolver, "batchSize", 2);
+    ReflectionTestUtils.setField(restaurantEntityResolver, "restaurantRepository",
+        restaurantRepository);
+  }
+
+  @AfterEach
+  void teardown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void resolvesInBatchesKeepingIdOrder() {
+    List<RestaurantEntity> restaurantEntities = restaurantEntityResolver.resolve(
+        Arrays.asList("1", "2", "missing", "3", "1", "4", "5"));
+
+    assertEquals(Arrays.asList("1", "2", "3", "4", "5"), idsOf(restaurantEntities));
+    verify(restaurantRepository, times(3)).findRestaurantsByRestaurantIdIn(anyCollection());
+  }
+
+  @Test
+  public void restaurantsAreRememberedWithinARequestOnly() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    restaurantEntityResolver.remember(Arrays.asList(restaurantEntity("1")));
+    restaurantEntityResolver.resolve(Arrays.asList("2", "3"));
+
+    List<RestaurantEntity> restaurantEntities =
+        restaurantEntityResolver.resolve(Arrays.asList("3", "1", "2"));
+
+    assertEquals(Arrays.asList("3", "1", "2"), idsOf(restaurantEntities));
+    verify(restaurantRepository, times(1)).findRestaurantsByRestaurantIdIn(anyCollection());
+
+    RequestContextHolder.resetRequestAttributes();
+    restaurantEntityResolver.resolve(Arrays.asList("1"));
+    verify(restaurantRepository, times(2)).findRestaurantsByRestaurantIdIn(anyCollection());
+  }
+
+  @Test
+  public void restaurantsAreRememberedAcrossTheSearchSourcesOfARequest() {
+    RestaurantSearchFanOut restaurantSearchFanOut = new RestaurantSearchFanOut();
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "threads", 2);
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "queueCapacity", 2);
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "sourceTimeoutInMillis", 2000L);
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "meterRegistry",
+        new SimpleMeterRegistry());
+    restaurantSearchFanOut.initExecutor();
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+
+    // The second source only runs once the first one resolved the restaurants.
+    CountDownLatch resolved = new CountDownLatch(1);
+    Map<SearchSource, Supplier<List<Restaurant>>> sources = new EnumMap<>(SearchSource.class);
+    sources.put(SearchSource.NAME, () -> {
+      restaurantEntityResolver.resolve(Arrays.asList("1", "2"));
+      resolved.countDown();
+      return Collections.emptyList();
+    });
+    sources.put(SearchSource.ITEM_NAME, () -> {
+      try {
+        resolved.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      restaurantEntityResolver.resolve(Arrays.asList("2", "1"));
+      return Collections.emptyList();
+    });
+
+    try {
+      assertFalse(restaurantSearchFanOut.invokeAll(sources).isPartial());
+    } finally {
+      restaurantSearchFanOut.shutdown();
+    }
+    verify(restaurantRepository, times(1)).findRestaurantsByRestaurantIdIn(anyCollection());
+  }
+
+  @Test
+  public void noIdsNeedNoQuery() {
+    assertEquals(Collections.emptyList(), restaurantEntityResolver.resolve(new ArrayList<>()));
+    verify(restaurantRepository, never()).findRestaurantsByRestaurantIdIn(anyCollection());
+  }
+
+  // Document ids differ from restaurant ids, as for documents stored with generated ids.
+  private static RestaurantEntity restaurantEntity(String restaurantId) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setId("5cb8c864835e31495d62ba1" + restaurantId);
+    restaurantEntity.setRestaurantId(restaurantId);
+    return restaurantEntity;
+  }
+
+  private static List<String> idsOf(List<RestaurantEntity> restaurantEntities) {
+    return restaurantEntities.stream().map(RestaurantEntity::getRestaurantId)
+        .collect(Collectors.toList());
+  }
+}
@@ -1,6 +1,7 @@
 package com.crio.qeats.repositoryservices;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -8,15 +9,20 @@ import static org.mockito.Mockito.when;
 
 import ch.hsr.geohash.GeoHash;
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.CachedRestaurants;
+import com.crio.qeats.cache.CachedRestaurantsCodecs;
 import com.crio.qeats.configs.RedisConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
+import com.crio.qeats.utils.GeoHashUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.List;
 import javax.inject.Provider;
 import org.junit.jupiter.api.AfterEach;
@@ -47,6 +53,8 @@ class RestaurantRepositoryServiceCacheTest {
   @Autowired
   private RedisConfiguration redisConfiguration;
   @Autowired
+  private CachedRestaurantsCodecs cachedRestaurantsCodecs;
+  @Autowired
   private ObjectMapper objectMapper;
   @Autowired
   private Provider<ModelMapper> modelMapperProvider;
@@ -80,7 +88,8 @@ class RestaurantRepositoryServiceCacheTest {
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
     allRestaurantsCloseBy = restaurantRepositoryService
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
-    GeoHash geoHash = GeoHash.withCharacterPrecision(20.0, 30.0, 7);
+    GeoHash geoHash = GeoHash.withCharacterPrecision(20.0, 30.0,
+        GlobalConstants.REDIS_CELL_GEOHASH_PRECISION);
 
     verify(mockRestaurantRepository, times(1)).findAll();
     assertNotNull(jedis.get(geoHash.toBase32()));
@@ -89,6 +98,47 @@ class RestaurantRepositoryServiceCacheTest {
     assertEquals("12", allRestaurantsCloseBy.get(1).getRestaurantId());
   }
 
+  @Test
+  void cachedCellsServeAnyTimeAndRadius() throws IOException {
+    when(mockRestaurantRepository.findAll()).thenReturn(listOfRestaurants());
+
+    List<Restaurant> closed = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(17, 0), 5.0);
+    List<Restaurant> peak = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+    List<Restaurant> normal = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 5.0);
+
+    verify(mockRestaurantRepository, times(1)).findAll();
+    assertEquals(0, closed.size());
+    assertEquals(2, peak.size());
+    assertEquals(3, normal.size());
+  }
+
+  @Test
+  void staleCellIsServedAndRefreshedInBackground() throws Exception {
+    when(mockRestaurantRepository.findAll()).thenReturn(listOfRestaurants());
+    Jedis jedis = redisConfiguration.getJedisPool().getResource();
+    String cell = GeoHash.withCharacterPrecision(20.0, 30.0,
+        GlobalConstants.REDIS_CELL_GEOHASH_PRECISION).toBase32();
+    for (String coveringCell : GeoHashUtils.findCoveringCells(20.0, 30.0, 3.0,
+        GlobalConstants.REDIS_CELL_GEOHASH_PRECISION)) {
+      jedis.set(coveringCell, objectMapper.writeValueAsString(
+          new CachedRestaurants(0, Collections.emptyList())));
+    }
+
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    assertEquals(0, allRestaurantsCloseBy.size());
+    CachedRestaurants refreshed = cachedRestaurantsCodecs.decode(jedis.get(cell.getBytes()));
+    for (int i = 0; i < 100 && refreshed.isStale(System.currentTimeMillis()); i++) {
+      Thread.sleep(50);
+      refreshed = cachedRestaurantsCodecs.decode(jedis.get(cell.getBytes()));
+    }
+    assertFalse(refreshed.isStale(System.currentTimeMillis()));
+  }
+
   private List<RestaurantEntity> listOfRestaurants() throws IOException {
     String fixture =
         FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
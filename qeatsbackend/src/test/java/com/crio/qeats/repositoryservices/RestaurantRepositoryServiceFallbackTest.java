@@ -0,0 +1,117 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.cache.CacheHealthTracker;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantFields;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+// Redis is reported unavailable, so nearby lookups are answered from Mongo.
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantRepositoryServiceFallbackTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockBean
+  private CacheHealthTracker cacheHealthTracker;
+
+  @MockBean
+  private RestaurantRepository restaurantRepository;
+
+  private List<RestaurantEntity> allRestaurants;
+
+  @BeforeEach
+  void setup() throws IOException {
+    allRestaurants = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : allRestaurants) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+    when(restaurantRepository.findAll()).thenReturn(allRestaurants);
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+  }
+
+  @Test
+  void onlyTheSelectedFieldsAreLoaded() {
+    List<Restaurant> restaurants = restaurantRepositoryService.findAllRestaurantsCloseBy(
+        20.0, 30.0, LocalTime.of(18, 1), 3.0,
+        RestaurantFields.parse("restaurantId,imageUrl,distance"));
+
+    verify(restaurantRepository, never()).findAll();
+    assertEquals(2, restaurants.size());
+    assertEquals("11", restaurants.get(0).getRestaurantId());
+    assertEquals("12", restaurants.get(1).getRestaurantId());
+    for (Restaurant restaurant : restaurants) {
+      assertNotNull(restaurant.getImageUrl());
+      // Needed for the distance.
+      assertNotNull(restaurant.getLatitude());
+      assertNull(restaurant.getName());
+      assertNull(restaurant.getOpensAt());
+      assertTrue(restaurant.getAttributes().isEmpty());
+    }
+  }
+
+  @Test
+  void noRestaurantsAreLoadedWhenNoneIsOpen() {
+    assertTrue(restaurantRepositoryService.findAllRestaurantsCloseBy(
+        20.0, 30.0, LocalTime.of(17, 59), 3.0, RestaurantFields.parse("name")).isEmpty());
+  }
+
+  @Test
+  void wholeRestaurantsAreLoadedWithoutSelection() {
+    List<Restaurant> restaurants = restaurantRepositoryService.findAllRestaurantsCloseBy(
+        20.0, 30.0, LocalTime.of(18, 1), 3.0, RestaurantFields.ALL);
+
+    verify(restaurantRepository, times(1)).findAll();
+    assertEquals(2, restaurants.size());
+    assertEquals("A2B", restaurants.get(0).getName());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class},
+    properties = "qeats.repositoryservice.mode=geo")
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantRepositoryServiceGeoTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantRepositoryServiceGeoImpl restaurantRepositoryService;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  void setup() throws IOException {
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+  }
+
+  @Test
+  void onlyRestaurantsWithinTheRadiusAreFound() {
+    assertEquals(idsOf("11", "12"), restaurantIdsOf(restaurantRepositoryService
+        .findAllRestaurantsMongo(20.0, 30.0, LocalTime.of(18, 1), 3.0)));
+    assertEquals(3, restaurantRepositoryService
+        .findAllRestaurantsMongo(20.0, 30.0, LocalTime.of(18, 1), 5.0).size());
+    assertTrue(restaurantRepositoryService
+        .findAllRestaurantsMongo(20.0, 30.0, LocalTime.of(17, 59), 5.0).isEmpty());
+  }
+
+  @Test
+  void restaurantsAcrossTheAntimeridianAreFound() {
+    mongoTemplate.save(restaurantAt("20", 0.0, 179.995), "restaurants");
+
+    // About 1.1 km away, on the other side of the antimeridian.
+    assertEquals(idsOf("20"), restaurantIdsOf(restaurantRepositoryService
+        .findAllRestaurantsMongo(0.0, -179.995, LocalTime.of(18, 1), 3.0)));
+  }
+
+  @Test
+  void restaurantsStoredWithoutLocationAreGivenOne() {
+    // Written by another application, without the GeoJSON location.
+    mongoTemplate.getCollection("restaurants").insertOne(new Document("restaurantId", "21")
+        .append("name", "Imported").append("city", "Hsr Layout").append("imageUrl", "img")
+        .append("latitude", 20.001).append("longitude", 30.002)
+        .append("opensAt", "18:00").append("closesAt", "23:00")
+        .append("attributes", Collections.emptyList()));
+
+    restaurantRepositoryService.backfillLocations();
+
+    RestaurantEntity imported = mongoTemplate.findOne(
+        Query.query(Criteria.where("restaurantId").is("21")), RestaurantEntity.class);
+    assertEquals(new GeoJsonPoint(30.002, 20.001), imported.getLocation());
+    assertEquals(idsOf("11", "12", "21"), restaurantIdsOf(restaurantRepositoryService
+        .findAllRestaurantsMongo(20.0, 30.0, LocalTime.of(18, 1), 3.0)));
+  }
+
+  private static RestaurantEntity restaurantAt(String restaurantId, double latitude,
+      double longitude) {
+    return new RestaurantEntity(null, restaurantId, "Restaurant " + restaurantId, "City",
+        "img", latitude, longitude, "18:00", "23:00", Collections.emptyList(), null);
+  }
+
+  private static Set<String> idsOf(String... restaurantIds) {
+    return Arrays.stream(restaurantIds).collect(Collectors.toSet());
+  }
+
+  private static Set<String> restaurantIdsOf(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toSet());
+  }
+}
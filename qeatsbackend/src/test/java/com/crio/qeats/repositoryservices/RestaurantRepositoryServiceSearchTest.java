@@ -0,0 +1,129 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+// Searches of the queries backend, against restaurants stored with generated ids.
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantRepositoryServiceSearchTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @BeforeEach
+  void setup() throws IOException {
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+
+    // Item and restaurant ids differ from the _id of their documents.
+    saveItem("11", "101", "Chicken Briyani", "Mughal");
+    saveItem("12", "102", "Fish Fry", "Coastal");
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
+    mongoTemplate.dropCollection("items");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  void itemSearchesFindRestaurantsByRestaurantId() {
+    RestaurantEntity restaurantEntity = mongoTemplate.findOne(
+        Query.query(Criteria.where("restaurantId").is("11")), RestaurantEntity.class);
+    assertNotEquals(restaurantEntity.getRestaurantId(), restaurantEntity.getId());
+
+    assertEquals(Collections.singletonList("11"), idsOf(restaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "briyani", LocalTime.of(18, 1), 3.0)));
+    assertEquals(Collections.singletonList("12"), idsOf(restaurantRepositoryService
+        .findRestaurantsByItemAttributes(20.0, 30.0, "coastal", LocalTime.of(18, 1), 3.0)));
+  }
+
+  @Test
+  void attributeSearchesMatchAttributesOnly() {
+    // Cuisines and item attributes match partly, names never do.
+    assertEquals(Arrays.asList("11", "12"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributes(20.0, 30.0, "indian", LocalTime.of(18, 1), 3.0)));
+    assertEquals(Collections.emptyList(), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributes(20.0, 30.0, "A2B", LocalTime.of(18, 1), 3.0)));
+    assertEquals(Collections.singletonList("11"), idsOf(restaurantRepositoryService
+        .findRestaurantsByItemAttributes(20.0, 30.0, "mugh", LocalTime.of(18, 1), 3.0)));
+    assertEquals(Collections.emptyList(), idsOf(restaurantRepositoryService
+        .findRestaurantsByItemAttributes(20.0, 30.0, "fish", LocalTime.of(18, 1), 3.0)));
+  }
+
+  private void saveItem(String restaurantId, String itemId, String name, String attribute) {
+    ItemEntity itemEntity = new ItemEntity();
+    itemEntity.setItemId(itemId);
+    itemEntity.setName(name);
+    itemEntity.setImageUrl("www.google.com");
+    itemEntity.setPrice(100.0);
+    itemEntity.setAttributes(new ArrayList<>(Arrays.asList(attribute)));
+    mongoTemplate.save(itemEntity, "items");
+
+    Item item = new Item(itemEntity.getId(), itemId, name, itemEntity.getImageUrl(),
+        itemEntity.getAttributes(), 100);
+    mongoTemplate.save(new MenuEntity(null, restaurantId, Collections.singletonList(item)),
+        "menus");
+  }
+
+  private static List<String> idsOf(List<Restaurant> restaurants) {
+    List<String> restaurantIds = new ArrayList<>();
+    for (Restaurant restaurant : restaurants) {
+      restaurantIds.add(restaurant.getRestaurantId());
+    }
+    return restaurantIds;
+  }
+}
@@ -18,6 +18,8 @@ import static org.mockito.Mockito.when;
 import com.crio.qeats.QEatsApplication;
 import com.crio.qeats.configs.RedisConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.index.AttributeFilter;
+import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
@@ -26,6 +28,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.inject.Provider;
@@ -91,6 +95,7 @@ public class RestaurantRepositoryServiceTest {
   @AfterEach
   void teardown() {
     mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
     redisConfiguration.destroyCache();
   }
 
@@ -182,6 +187,37 @@ public class RestaurantRepositoryServiceTest {
 
 
 
+  @Test
+  void attributeFilterMatchesCuisinesAndItemAttributes() throws IOException {
+    List<MenuEntity> menuEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json"),
+        new TypeReference<List<MenuEntity>>() {
+        });
+    for (MenuEntity menuEntity : menuEntities) {
+      if (!"12".equals(menuEntity.getRestaurantId())) {
+        mongoTemplate.save(menuEntity, "menus");
+      }
+    }
+
+    assertEquals(Arrays.asList("11"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributeFilter(20.0, 30.0, AttributeFilter.parse("Tamil,MUGHAL"),
+            LocalTime.of(18, 1), 3.0)));
+    assertEquals(Arrays.asList("11", "12"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributeFilter(20.0, 30.0, AttributeFilter.parse("mughal|tamil"),
+            LocalTime.of(18, 1), 3.0)));
+    assertEquals(Collections.emptyList(), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributeFilter(20.0, 30.0, AttributeFilter.parse("tamil,spicy"),
+            LocalTime.of(18, 1), 3.0)));
+  }
+
+  private static List<String> idsOf(List<Restaurant> restaurants) {
+    List<String> restaurantIds = new ArrayList<>();
+    for (Restaurant restaurant : restaurants) {
+      restaurantIds.add(restaurant.getRestaurantId());
+    }
+    return restaurantIds;
+  }
+
   void searchedAttributesIsSubsetOfRetrievedRestaurantAttributes() {
   }
 
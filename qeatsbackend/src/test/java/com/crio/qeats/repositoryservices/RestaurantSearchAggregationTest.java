@@ -0,0 +1,175 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.services.RestaurantService;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class},
+    properties = "qeats.search.backend=aggregation")
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantSearchAggregationTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantSearchAggregation restaurantSearchAggregation;
+
+  @Autowired
+  private RestaurantService restaurantService;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @BeforeEach
+  void setup() throws IOException {
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+    List<MenuEntity> menuEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json"),
+        new TypeReference<List<MenuEntity>>() {
+        });
+    for (MenuEntity menuEntity : menuEntities) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  public void everySourceIsAnsweredByOneAggregation() {
+    Map<SearchSource, List<Restaurant>> restaurantsBySource = restaurantSearchAggregation
+        .findRestaurantsBySearchQuery(20.0, 30.0, "i", LocalTime.of(18, 1), 3.0);
+
+    assertEquals(Collections.emptyList(), idsOf(restaurantsBySource.get(SearchSource.NAME)));
+    assertEquals(Arrays.asList("11", "12"),
+        idsOf(restaurantsBySource.get(SearchSource.ATTRIBUTES)));
+    assertEquals(Arrays.asList("11", "12"),
+        idsOf(restaurantsBySource.get(SearchSource.ITEM_NAME)));
+    assertEquals(Collections.emptyList(),
+        idsOf(restaurantsBySource.get(SearchSource.ITEM_ATTRIBUTES)));
+    assertSame(restaurantsBySource.get(SearchSource.ATTRIBUTES).get(0),
+        restaurantsBySource.get(SearchSource.ITEM_NAME).get(0));
+  }
+
+  @Test
+  public void matchesAreCaseInsensitiveAndPartial() {
+    Map<SearchSource, List<Restaurant>> restaurantsBySource = restaurantSearchAggregation
+        .findRestaurantsBySearchQuery(20.8, 30.1, "mUGH", LocalTime.of(20, 0), 5.0);
+
+    assertEquals(Arrays.asList("13"),
+        idsOf(restaurantsBySource.get(SearchSource.ITEM_ATTRIBUTES)));
+  }
+
+  @Test
+  public void closedAndFarRestaurantsAreDropped() {
+    assertEquals(Collections.emptyList(), idsOf(restaurantSearchAggregation
+        .findRestaurantsBySearchQuery(20.0, 30.0, "A2B", LocalTime.of(18, 0), 3.0)
+        .get(SearchSource.NAME)));
+    assertEquals(Arrays.asList("11", "12"), idsOf(restaurantSearchAggregation
+        .findRestaurantsBySearchQuery(20.0, 30.0, "A2B", LocalTime.of(18, 0, 1), 3.0)
+        .get(SearchSource.NAME)));
+  }
+
+  @Test
+  public void exactItemNameMatchesAreListedFirst() {
+    // Restaurant 12 also serves an item named exactly like the query, 11 only a partial match.
+    mongoTemplate.save(new MenuEntity(null, "12", Collections.singletonList(
+        new Item("2", "2", "Briyani", "www.google.com", Arrays.asList("Mughal"), 200))),
+        "menus");
+
+    assertEquals(Arrays.asList("12", "11"), idsOf(restaurantSearchAggregation
+        .findRestaurantsBySearchQuery(20.0, 30.0, "briyani", LocalTime.of(18, 1), 3.0)
+        .get(SearchSource.ITEM_NAME)));
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("briyani");
+    assertEquals(Arrays.asList("12", "11"), idsOf(restaurantService
+        .findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.of(19, 30))
+        .getRestaurants()));
+  }
+
+  @Test
+  public void anyMenuOfARestaurantMayMatch() {
+    // Restaurant 11 has a second menu, only its items match.
+    mongoTemplate.save(new MenuEntity(null, "11", Arrays.asList(
+        new Item("3", "3", "Idly", "www.google.com", Arrays.asList("South Indian"), 40),
+        new Item("4", "4", "Masala Dosa", "www.google.com", Arrays.asList("Udupi"), 60))),
+        "menus");
+
+    Map<SearchSource, List<Restaurant>> restaurantsBySource = restaurantSearchAggregation
+        .findRestaurantsBySearchQuery(20.0, 30.0, "udupi", LocalTime.of(18, 1), 3.0);
+
+    assertEquals(Arrays.asList("11"),
+        idsOf(restaurantsBySource.get(SearchSource.ITEM_ATTRIBUTES)));
+    assertEquals(Collections.emptyList(),
+        idsOf(restaurantsBySource.get(SearchSource.ITEM_NAME)));
+    assertEquals(Arrays.asList("11"), idsOf(restaurantSearchAggregation
+        .findRestaurantsBySearchQuery(20.0, 30.0, "dosa", LocalTime.of(18, 1), 3.0)
+        .get(SearchSource.ITEM_NAME)));
+  }
+
+  @Test
+  public void serviceListsEachRestaurantOnce() {
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.8, 30.1);
+    getRestaurantsRequest.setSearchFor("a");
+
+    List<Restaurant> restaurants = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0))
+        .getRestaurants();
+
+    assertEquals(Arrays.asList("13", "14"), idsOf(restaurants));
+  }
+
+  private static List<String> idsOf(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+}
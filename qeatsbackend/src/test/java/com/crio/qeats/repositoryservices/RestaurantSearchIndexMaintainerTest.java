@@ -0,0 +1,193 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.index.AttributeFilter;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.services.RestaurantService;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SpringBootTest(classes = {QEatsApplication.class}, properties = "qeats.search.backend=index")
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantSearchIndexMaintainerTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @Autowired
+  private RestaurantSearchIndexMaintainer restaurantSearchIndexMaintainer;
+
+  @Autowired
+  private RestaurantSuggestionsMaintainer restaurantSuggestionsMaintainer;
+
+  @Autowired
+  private RestaurantService restaurantService;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  private List<RestaurantEntity> restaurantEntities;
+
+  @BeforeEach
+  void setup() throws IOException {
+    restaurantSearchIndexMaintainer.refreshSearchIndex();
+    // Saved after the index was built, so they are only found through the save events.
+    restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+    List<MenuEntity> menuEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json"),
+        new TypeReference<List<MenuEntity>>() {
+        });
+    for (MenuEntity menuEntity : menuEntities) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  public void searchesAreAnsweredFromTheIndex() {
+    assertEquals(Arrays.asList("13", "14"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributes(20.8, 30.1, "tamil", LocalTime.of(20, 0), 5.0)));
+    assertEquals(Arrays.asList("11", "12"), idsOf(restaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "briyani", LocalTime.of(18, 1), 3.0)));
+    assertEquals(Arrays.asList("13"), idsOf(restaurantRepositoryService
+        .findRestaurantsByItemAttributes(20.8, 30.1, "MUGHAL", LocalTime.of(20, 0), 5.0)));
+  }
+
+  @Test
+  public void attributeFiltersAreAnsweredFromTheIndex() {
+    // 14 has no menu.
+    assertEquals(Arrays.asList("13"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributeFilter(20.8, 30.1, AttributeFilter.parse("tamil,mughal"),
+            LocalTime.of(20, 0), 5.0)));
+    assertEquals(Arrays.asList("13", "14"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributeFilter(20.8, 30.1, AttributeFilter.parse("udupi|south indian"),
+            LocalTime.of(20, 0), 5.0)));
+  }
+
+  @Test
+  public void searchesMatchingNothingAreRetriedCorrected() {
+    restaurantSuggestionsMaintainer.refreshSuggestions();
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("biriyani");
+
+    GetRestaurantsResponse getRestaurantsResponse = restaurantService
+        .findRestaurantsBySearchQueryMt(getRestaurantsRequest, LocalTime.of(18, 1));
+
+    assertEquals("briyani", getRestaurantsResponse.getCorrectedSearchFor());
+    assertEquals(Arrays.asList("11", "12"), idsOf(getRestaurantsResponse.getRestaurants()));
+  }
+
+  @Test
+  public void exactNameMatchesComeFirst() {
+    RestaurantEntity partialMatch = restaurantEntities.get(3);
+    partialMatch.setName("A2B Express");
+    mongoTemplate.save(partialMatch, "restaurants");
+    RestaurantEntity exactMatch = restaurantEntities.get(4);
+    exactMatch.setName("a2b");
+    mongoTemplate.save(exactMatch, "restaurants");
+
+    List<Restaurant> restaurants = restaurantRepositoryService
+        .findRestaurantsByName(20.8, 30.1, "A2B", LocalTime.of(20, 0), 5.0);
+
+    assertEquals(Arrays.asList("a2b", "A2B Express"),
+        restaurants.stream().map(Restaurant::getName).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void deletedRestaurantsAreDropped() {
+    mongoTemplate.remove(restaurantEntities.get(4), "restaurants");
+
+    assertEquals(Arrays.asList("13"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributes(20.8, 30.1, "tamil", LocalTime.of(20, 0), 5.0)));
+    assertEquals(Collections.emptyList(), idsOf(restaurantRepositoryService
+        .findRestaurantsByName(20.8, 30.1, "adyar", LocalTime.of(20, 0), 5.0)));
+  }
+
+  @Test
+  public void changesMadeDuringARebuildAreKept() {
+    RestaurantEntity tamilRestaurant = restaurantEntities.get(3);
+    RestaurantEntity savedDuringRebuild = new RestaurantEntity(null, "15", "Tamil Mess",
+        tamilRestaurant.getCity(), tamilRestaurant.getImageUrl(), tamilRestaurant.getLatitude(),
+        tamilRestaurant.getLongitude(), tamilRestaurant.getOpensAt(),
+        tamilRestaurant.getClosesAt(), tamilRestaurant.getAttributes(), null);
+    // The snapshot is taken before 15 is saved and 14 deleted.
+    RestaurantRepository rebuildRepository = mock(RestaurantRepository.class);
+    when(rebuildRepository.findAll()).thenAnswer(invocation -> {
+      List<RestaurantEntity> snapshot = restaurantRepository.findAll();
+      mongoTemplate.save(savedDuringRebuild, "restaurants");
+      mongoTemplate.remove(restaurantEntities.get(4), "restaurants");
+      return snapshot;
+    });
+    ReflectionTestUtils.setField(restaurantSearchIndexMaintainer, "restaurantRepository",
+        rebuildRepository);
+    try {
+      restaurantSearchIndexMaintainer.refreshSearchIndex();
+    } finally {
+      ReflectionTestUtils.setField(restaurantSearchIndexMaintainer, "restaurantRepository",
+          restaurantRepository);
+    }
+
+    assertEquals(Arrays.asList("13", "15"), idsOf(restaurantRepositoryService
+        .findRestaurantsByAttributes(20.8, 30.1, "tamil", LocalTime.of(20, 0), 5.0)));
+  }
+
+  private static List<String> idsOf(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantSuggestionsMaintainerTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantSuggestionsMaintainer restaurantSuggestionsMaintainer;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @BeforeEach
+  void setup() throws IOException {
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+    List<MenuEntity> menuEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json"),
+        new TypeReference<List<MenuEntity>>() {
+        });
+    for (MenuEntity menuEntity : menuEntities) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+    restaurantSuggestionsMaintainer.refreshSuggestions();
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  public void namesCuisinesAndItemsAreWeightedByTheirDocuments() {
+    assertEquals(Arrays.asList("A2B:NAME:4", "A2B Adyar Ananda Bhavan:NAME:1"), complete("a"));
+    assertEquals(Arrays.asList("South Indian:ATTRIBUTES:5"), complete("sou"));
+    assertEquals(Arrays.asList("Fish Briyani:ITEM_NAME:1"), complete("FISH"));
+  }
+
+  @Test
+  public void misspelledWordsAreCorrectedAgainstTheVocabulary() {
+    assertEquals("briyani", restaurantSuggestionsMaintainer.getQueryCorrector()
+        .correct("biriyani", 2));
+    assertEquals("chicken briyani", restaurantSuggestionsMaintainer.getQueryCorrector()
+        .correct("chiken briyani", 2));
+    assertNull(restaurantSuggestionsMaintainer.getQueryCorrector().correct("fish", 2));
+  }
+
+  private List<String> complete(String prefix) {
+    List<Suggestion> suggestions =
+        restaurantSuggestionsMaintainer.getSuggestionTrie().complete(prefix, 10);
+    return suggestions.stream()
+        .map(suggestion -> suggestion.getText() + ":" + suggestion.getType() + ":"
+            + suggestion.getWeight())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class SearchPatternsTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private SearchPatterns searchPatterns;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @BeforeEach
+  void setup() throws IOException {
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    restaurantEntities.get(0).setName("Café A2B");
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  public void searchStringsAreNormalizedToLettersDigitsAndPlainPunctuation() {
+    assertEquals("a", SearchPatterns.normalize("(a+)+$", 64));
+    assertEquals("cafe a2b", SearchPatterns.normalize("  CAFÉ\t(A2B) ", 64));
+    assertEquals("dal & rice", SearchPatterns.normalize("Dal & Rice", 64));
+    assertEquals("abc", SearchPatterns.normalize("abc def", 4));
+    assertEquals("", SearchPatterns.normalize("$[]{}*", 64));
+    assertNull(searchPatterns.containing("$[]{}"));
+  }
+
+  @Test
+  public void namesMatchCaseAndAccentInsensitively() {
+    assertEquals(Collections.singletonList("10"),
+        idsOf(restaurantRepository.findRestaurantsByNameExact(searchPatterns.exactly("CAFE a2b"))
+            .get()));
+    assertEquals(3, restaurantRepository.findRestaurantsByNameExact(searchPatterns.exactly("a2b"))
+        .get().size());
+    assertTrue(searchPatterns.containing("cafe").matcher("Café Udupi").find());
+    assertTrue(searchPatterns.containing("Café").matcher("CAFE UDUPI").find());
+  }
+
+  @Test
+  public void namesWithPunctuationMatchTheirOwnText() {
+    assertTrue(searchPatterns.exactly("Burger King (Koramangala)")
+        .matcher("Burger King (Koramangala)").matches());
+    assertTrue(searchPatterns.exactly("burger king koramangala")
+        .matcher("Burger King (Koramangala)").matches());
+    assertTrue(searchPatterns.exactly("Chicken, Mutton").matcher("Chicken,Mutton").matches());
+    assertTrue(searchPatterns.exactly("idly/vada").matcher("Idly / Vada").matches());
+    assertTrue(searchPatterns.containing("king koramangala")
+        .matcher("Burger King (Koramangala)").find());
+    assertFalse(searchPatterns.exactly("burger king").matcher("Burger King (Koramangala)")
+        .matches());
+    assertFalse(searchPatterns.exactly("chicken mutton").matcher("Chickenmutton").matches());
+
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId("20");
+    restaurantEntity.setName("Burger King (Koramangala)");
+    mongoTemplate.save(restaurantEntity, "restaurants");
+    assertEquals(Collections.singletonList("20"), idsOf(restaurantRepository
+        .findRestaurantsByNameExact(searchPatterns.exactly("Burger King (Koramangala)")).get()));
+  }
+
+  @Test
+  public void hostileSearchStringsOnlyMatchLiterally() {
+    assertTrue(restaurantRepository.findRestaurantsByNameExact(searchPatterns.exactly(".*"))
+        .get().isEmpty());
+    assertTrue(searchPatterns.exactly("a.b").matcher("a.b").matches());
+    assertFalse(searchPatterns.exactly("a.b").matcher("axb").matches());
+  }
+
+  @Test
+  public void compiledPatternsAreCached() {
+    assertSame(searchPatterns.containing("Briyani"), searchPatterns.containing(" briyani "));
+  }
+
+  private static List<String> idsOf(List<RestaurantEntity> restaurantEntities) {
+    return restaurantEntities.stream().map(RestaurantEntity::getRestaurantId)
+        .collect(Collectors.toList());
+  }
+}
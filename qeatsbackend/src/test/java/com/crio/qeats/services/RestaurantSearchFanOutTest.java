@@ -0,0 +1,165 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.repositoryservices.SearchSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class RestaurantSearchFanOutTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private RestaurantSearchFanOut restaurantSearchFanOut;
+
+  @AfterEach
+  void teardown() {
+    restaurantSearchFanOut.shutdown();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void sourcesRunConcurrently() {
+    createFanOut(4, 4, 2000);
+    // Every source waits for all the others to start.
+    CountDownLatch started = new CountDownLatch(4);
+    Map<SearchSource, Supplier<List<Restaurant>>> sources = new EnumMap<>(SearchSource.class);
+    for (SearchSource searchSource : SearchSource.values()) {
+      sources.put(searchSource, () -> {
+        started.countDown();
+        await(started);
+        return Collections.singletonList(restaurant(searchSource.name()));
+      });
+    }
+
+    RestaurantSearchFanOut.Result result = restaurantSearchFanOut.invokeAll(sources);
+
+    assertFalse(result.isPartial());
+    assertEquals(EnumSet.allOf(SearchSource.class), result.getRestaurantsBySource().keySet());
+    assertEquals("ITEM_NAME", result.getRestaurantsBySource().get(SearchSource.ITEM_NAME)
+        .get(0).getRestaurantId());
+  }
+
+  @Test
+  public void slowAndFailingSourcesAreLeftOut() {
+    createFanOut(4, 4, 100);
+    CountDownLatch never = new CountDownLatch(1);
+    Map<SearchSource, Supplier<List<Restaurant>>> sources = new EnumMap<>(SearchSource.class);
+    sources.put(SearchSource.NAME, () -> Collections.singletonList(restaurant("10")));
+    sources.put(SearchSource.ATTRIBUTES, () -> {
+      await(never);
+      return Collections.emptyList();
+    });
+    sources.put(SearchSource.ITEM_NAME, () -> {
+      throw new IllegalStateException("Mongo is down");
+    });
+
+    long start = System.nanoTime();
+    RestaurantSearchFanOut.Result result = restaurantSearchFanOut.invokeAll(sources);
+
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    assertTrue(result.isPartial());
+    assertEquals(EnumSet.of(SearchSource.NAME), result.getRestaurantsBySource().keySet());
+    assertEquals(1, meterRegistry.get("qeats.search.source.timeouts")
+        .tag("source", "ATTRIBUTES").counter().count());
+    assertEquals(1, meterRegistry.get("qeats.search.source.failures")
+        .tag("source", "ITEM_NAME").counter().count());
+  }
+
+  @Test
+  public void saturatedPoolRejectsSources() {
+    createFanOut(1, 1, 100);
+    Map<SearchSource, Supplier<List<Restaurant>>> sources = new EnumMap<>(SearchSource.class);
+    for (SearchSource searchSource : SearchSource.values()) {
+      sources.put(searchSource, Collections::emptyList);
+    }
+    CountDownLatch blocked = new CountDownLatch(1);
+    Map<SearchSource, Supplier<List<Restaurant>>> blocking = new EnumMap<>(SearchSource.class);
+    blocking.put(SearchSource.NAME, () -> {
+      await(blocked);
+      return Collections.emptyList();
+    });
+    restaurantSearchFanOut.invokeAll(blocking);
+
+    RestaurantSearchFanOut.Result result = restaurantSearchFanOut.invokeAll(sources);
+    blocked.countDown();
+
+    assertTrue(result.isPartial());
+    assertEquals(3, meterRegistry.find("qeats.search.source.rejections").counters().stream()
+        .mapToDouble(counter -> counter.count()).sum());
+    assertEquals(1, meterRegistry.get("executor.pool.size")
+        .tag("name", RestaurantSearchFanOut.EXECUTOR_NAME).gauge().value());
+  }
+
+  @Test
+  public void sourcesRunWithinTheRequestOfTheCaller() {
+    createFanOut(1, 4, 2000);
+    RequestAttributes requestAttributes =
+        new ServletRequestAttributes(new MockHttpServletRequest());
+    RequestContextHolder.setRequestAttributes(requestAttributes);
+    Map<SearchSource, Supplier<List<Restaurant>>> sources = new EnumMap<>(SearchSource.class);
+    sources.put(SearchSource.NAME, () -> {
+      assertSame(requestAttributes, RequestContextHolder.getRequestAttributes());
+      return Collections.emptyList();
+    });
+
+    assertFalse(restaurantSearchFanOut.invokeAll(sources).isPartial());
+
+    // The pool thread does not keep the request once the source is done.
+    RequestContextHolder.resetRequestAttributes();
+    sources.put(SearchSource.NAME, () -> {
+      assertNull(RequestContextHolder.getRequestAttributes());
+      return Collections.emptyList();
+    });
+    assertFalse(restaurantSearchFanOut.invokeAll(sources).isPartial());
+  }
+
+  private void createFanOut(int threads, int queueCapacity, long sourceTimeoutInMillis) {
+    restaurantSearchFanOut = new RestaurantSearchFanOut();
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "threads", threads);
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "queueCapacity", queueCapacity);
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "sourceTimeoutInMillis",
+        sourceTimeoutInMillis);
+    ReflectionTestUtils.setField(restaurantSearchFanOut, "meterRegistry", meterRegistry);
+    restaurantSearchFanOut.initExecutor();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static Restaurant restaurant(String restaurantId) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    return restaurant;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.repositoryservices.SearchSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RestaurantSearchRankerTest {
+
+  private RestaurantSearchRanker restaurantSearchRanker;
+
+  @BeforeEach
+  void setup() {
+    restaurantSearchRanker = new RestaurantSearchRanker();
+    ReflectionTestUtils.setField(restaurantSearchRanker, "maxResults", 100);
+  }
+
+  @Test
+  public void exactNameMatchesComeFirstAndRestaurantsAreListedOnce() {
+    Map<SearchSource, List<Restaurant>> restaurantsBySource = new EnumMap<>(SearchSource.class);
+    restaurantsBySource.put(SearchSource.ITEM_ATTRIBUTES,
+        Arrays.asList(restaurant("5", "Punjabi Dhaba"), restaurant("1", "Udupi Grand")));
+    restaurantsBySource.put(SearchSource.NAME,
+        Arrays.asList(restaurant("1", "Udupi Grand"), restaurant("2", "UDUPI")));
+    restaurantsBySource.put(SearchSource.ITEM_NAME,
+        Arrays.asList(restaurant("4", "Dosa Point"), restaurant("3", "Sagar")));
+    restaurantsBySource.put(SearchSource.ATTRIBUTES,
+        Arrays.asList(restaurant("3", "Sagar"), restaurant("2", "UDUPI")));
+
+    assertEquals(Arrays.asList("2", "1", "3", "4", "5"),
+        idsOf(restaurantSearchRanker.rank(" udupi ", restaurantsBySource)));
+  }
+
+  @Test
+  public void onlyTheBestRankedRestaurantsAreKept() {
+    ReflectionTestUtils.setField(restaurantSearchRanker, "maxResults", 3);
+    List<Restaurant> partialMatches = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      partialMatches.add(restaurant("p" + i, "Cafe " + i));
+    }
+    Map<SearchSource, List<Restaurant>> restaurantsBySource = new EnumMap<>(SearchSource.class);
+    restaurantsBySource.put(SearchSource.ITEM_NAME, Arrays.asList(restaurant("i", "Idli Shop")));
+    restaurantsBySource.put(SearchSource.NAME, new ArrayList<>(partialMatches));
+    restaurantsBySource.get(SearchSource.NAME).add(restaurant("e", "Cafe"));
+
+    assertEquals(Arrays.asList("e", "p0", "p1"),
+        idsOf(restaurantSearchRanker.rank("cafe", restaurantsBySource)));
+  }
+
+  private static List<String> idsOf(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+
+  private static Restaurant restaurant(String restaurantId, String name) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setName(name);
+    return restaurant;
+  }
+}
@@ -18,24 +18,28 @@ import com.crio.qeats.QEatsApplication;
 import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.index.AttributeFilter;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 // TODO: CRIO_TASK_MODULE_RESTAURANTSAPI
 //  Pass all the RestaurantService test cases.
@@ -55,11 +59,14 @@ class RestaurantServiceTest {
   private RestaurantServiceImpl restaurantService;
   @MockBean
   private RestaurantRepositoryService restaurantRepositoryServiceMock;
+  @Spy
+  private RestaurantSearchRanker restaurantSearchRanker;
   private ObjectMapper objectMapper;
 
   @BeforeEach
   void setup() {
     MockitoAnnotations.initMocks(this);
+    ReflectionTestUtils.setField(restaurantSearchRanker, "maxResults", 100);
 
     objectMapper = new ObjectMapper();
   }
@@ -153,6 +160,31 @@ class RestaurantServiceTest {
     assertEquals(servingRadiusInKms.getValue().toString(), "5.0");
   }
 
+  @Test
+  void attributeFilterNarrowsDownSearchResults() throws IOException {
+    List<Restaurant> restaurants = loadRestaurantsDuringNormalHours();
+    when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenReturn(restaurants);
+    ArgumentCaptor<AttributeFilter> attributeFilter =
+        ArgumentCaptor.forClass(AttributeFilter.class);
+    when(restaurantRepositoryServiceMock.findRestaurantsByAttributeFilter(any(Double.class),
+        any(Double.class), attributeFilter.capture(), any(LocalTime.class), any(Double.class)))
+        .thenReturn(Collections.singletonList(restaurants.get(1)));
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Test");
+    getRestaurantsRequest.setAttributes("Tamil | Udupi, SPICY");
+
+    GetRestaurantsResponse allRestaurantsSearchResults = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    assertEquals(1, allRestaurantsSearchResults.getRestaurants().size());
+    assertEquals(restaurants.get(1).getRestaurantId(),
+        allRestaurantsSearchResults.getRestaurants().get(0).getRestaurantId());
+    assertEquals("tamil|udupi,spicy", attributeFilter.getValue().toString());
+  }
+
   @Test
   void peakHourFindRestaurantsSearchQuery() throws IOException {
     when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
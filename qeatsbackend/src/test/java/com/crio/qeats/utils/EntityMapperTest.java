@@ -0,0 +1,69 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+class EntityMapperTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @Test
+  public void restaurantsAreMappedLikeModelMapperDoes() throws IOException {
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    restaurantEntities.get(0).setId("5c1a");
+
+    List<Restaurant> restaurants = EntityMapper.toRestaurants(restaurantEntities);
+
+    assertEquals(restaurantEntities.size(), restaurants.size());
+    for (int i = 0; i < restaurants.size(); i++) {
+      assertEquals(new ModelMapper().map(restaurantEntities.get(i), Restaurant.class),
+          restaurants.get(i));
+      assertNotSame(restaurantEntities.get(i).getAttributes(), restaurants.get(i).getAttributes());
+    }
+    assertEquals("5c1a", restaurants.get(0).getId());
+  }
+
+  @Test
+  public void itemsAreMappedLikeModelMapperDoes() throws IOException {
+    ItemEntity itemEntity = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/item_dosai.json"), ItemEntity.class);
+
+    Item item = EntityMapper.toItem(itemEntity);
+
+    assertEquals(new ModelMapper().map(itemEntity, Item.class), item);
+    assertEquals(75, item.getPrice());
+  }
+
+  @Test
+  public void nullListsStayNull() {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setAttributes(null);
+
+    assertNull(EntityMapper.toRestaurant(restaurantEntity).getAttributes());
+  }
+}
@@ -0,0 +1,59 @@
+
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.hsr.geohash.WGS84Point;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class GeoHashUtilsTest {
+
+  @Test
+  public void coveringCellsContainEveryPointWithinTheRadius() {
+    Random random = new Random(42);
+    double[][] centers = {{20.0, 30.0}, {12.9168585, 77.6072902}, {0.0, 179.99}, {-60.0, -0.01}};
+    for (double[] center : centers) {
+      List<String> cells = GeoHashUtils.findCoveringCells(center[0], center[1], 5.0, 5);
+      for (int i = 0; i < 2000; i++) {
+        double latitude = center[0] + (random.nextDouble() - 0.5) * 0.2;
+        double longitude = center[1] + (random.nextDouble() - 0.5) * 0.4;
+        longitude = longitude > 180 ? longitude - 360 : longitude;
+        if (GeoUtils.findDistanceInKm(center[0], center[1], latitude, longitude) < 5.0) {
+          assertTrue(cells.contains(GeoHashUtils.cellOf(latitude, longitude, 5)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void coveringCellsAreDistinctAndListedFromSouthWest() {
+    List<String> cells = GeoHashUtils.findCoveringCells(20.0, 30.0, 3.0, 5);
+
+    assertEquals(cells.size(), new HashSet<>(cells).size());
+    WGS84Point first = GeoHashUtils.centerOf(cells.get(0));
+    WGS84Point last = GeoHashUtils.centerOf(cells.get(cells.size() - 1));
+    assertTrue(first.getLatitude() < last.getLatitude());
+    assertTrue(first.getLongitude() < last.getLongitude());
+  }
+
+  @Test
+  public void circumradiusCoversTheCell() {
+    String cell = GeoHashUtils.cellOf(20.0, 30.0, 5);
+    WGS84Point center = GeoHashUtils.centerOf(cell);
+    double circumradius = GeoHashUtils.circumradiusInKms(cell);
+
+    assertEquals(3.4, circumradius, 0.2);
+    assertTrue(GeoUtils.findDistanceInKm(center.getLatitude(), center.getLongitude(),
+        20.0, 30.0) <= circumradius);
+  }
+}
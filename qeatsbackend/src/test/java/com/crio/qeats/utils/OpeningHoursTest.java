@@ -0,0 +1,68 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class OpeningHoursTest {
+
+  @Test
+  public void restaurantsAreClosedExactlyAtTheirOpeningAndClosingTimes() {
+    int[] slots = OpeningHours.parse("18:00", "23:00");
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(17, 59, 59)));
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(18, 0)));
+    assertTrue(OpeningHours.isOpen(slots, LocalTime.of(18, 0, 0, 1)));
+    assertTrue(OpeningHours.isOpen(slots, LocalTime.of(22, 59, 59)));
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(23, 0)));
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(23, 0, 1)));
+  }
+
+  @Test
+  public void slotsClosingBeforeTheyOpenRunPastMidnight() {
+    int[] slots = OpeningHours.parse("22:00", "02:00");
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(21, 0)));
+    assertTrue(OpeningHours.isOpen(slots, LocalTime.of(23, 59, 59)));
+    assertTrue(OpeningHours.isOpen(slots, LocalTime.MIDNIGHT));
+    assertTrue(OpeningHours.isOpen(slots, LocalTime.of(1, 59, 59)));
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(2, 0)));
+
+    int[] untilMidnight = OpeningHours.parse("20:00", "00:00");
+    assertTrue(OpeningHours.isOpen(untilMidnight, LocalTime.of(23, 59, 59)));
+    assertFalse(OpeningHours.isOpen(untilMidnight, LocalTime.MIDNIGHT));
+  }
+
+  @Test
+  public void restaurantsMayOpenSeveralTimesADay() {
+    int[] slots = OpeningHours.parse("11:00, 18:00", "15:00, 23:00");
+    assertTrue(OpeningHours.isOpen(slots, LocalTime.of(12, 0)));
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(16, 0)));
+    assertTrue(OpeningHours.isOpen(slots, LocalTime.of(19, 0)));
+    assertFalse(OpeningHours.isOpen(slots, LocalTime.of(23, 30)));
+  }
+
+  @Test
+  public void restaurantsWithUnknownHoursAreNeverOpen() {
+    LocalTime noon = LocalTime.NOON;
+    assertFalse(OpeningHours.isOpen(OpeningHours.parse(null, "23:00"), noon));
+    assertFalse(OpeningHours.isOpen(OpeningHours.parse("11:00", "late"), noon));
+    assertFalse(OpeningHours.isOpen(OpeningHours.parse("11:00,18:00", "23:00"), noon));
+  }
+
+  @Test
+  public void hoursLookedUpAreParsedOnce() {
+    int[] slots = OpeningHours.of("11:00,18:00", "15:00,23:00");
+    assertArrayEquals(OpeningHours.parse("11:00,18:00", "15:00,23:00"), slots);
+    assertSame(slots, OpeningHours.of(new String("11:00,18:00"), "15:00,23:00"));
+    assertFalse(OpeningHours.isOpen(OpeningHours.of(null, "23:00"), LocalTime.NOON));
+  }
+}